@@ -12,10 +12,11 @@ import mmt.exceptions.NoSuchPassengerIdException;
 import mmt.exceptions.NoSuchStationNameException;
 import mmt.exceptions.NoSuchItineraryChoiceException;
 import pt.tecnico.po.ui.Command;
+import pt.tecnico.po.ui.Display;
 import pt.tecnico.po.ui.DialogException;
 import pt.tecnico.po.ui.Input;
 
-import java.util.List;
+import java.util.Iterator;
 
 /**
  * §3.4.3. Add new itinerary.
@@ -37,7 +38,7 @@ public class DoRegisterItinerary extends Command<TicketOffice> {
   }
 
   /** @see pt.tecnico.po.ui.Command#execute()
-    * @see mmt.TicketOffice#search(int,String,String,String,String)
+    * @see mmt.TicketOffice#searchStream(int,String,String,String,String)
     * @see mmt.TicketOffice#commitItinerary(int,int)
     */
   @Override
@@ -52,12 +53,15 @@ public class DoRegisterItinerary extends Command<TicketOffice> {
     _form.parse();
 
     try {
-      List<String> itineraries = _receiver.search(_passengerId.value(),
+      Iterator<String> itineraries = _receiver.searchStream(_passengerId.value(),
 _departureStation.value(), _arrivalStation.value(), _departureDate.value(), _departureTime.value());
-      if(itineraries.size() > 0) {
-        for(String s : itineraries)
-          _display.addLine(s);
-        _display.display();
+      if(itineraries.hasNext()) {
+        /* each itinerary is shown as soon as it is found */
+        for(boolean first = true; itineraries.hasNext(); first = false) {
+          _display = new Display(title());
+          _display.addNewLine(itineraries.next(), !first);
+          _display.display();
+        }
         _form.clear();
         _itineraryNumber = _form.addIntegerInput(Message.requestItineraryChoice());
         _form.parse();
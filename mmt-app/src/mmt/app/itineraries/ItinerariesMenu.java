@@ -15,6 +15,7 @@ public class ItinerariesMenu extends Menu {
         new DoShowAllItineraries(receiver), //
         new DoShowPassengerItineraries(receiver), //
         new DoRegisterItinerary(receiver), //
+        new DoRegisterArriveByItinerary(receiver), //
     });
   }
 
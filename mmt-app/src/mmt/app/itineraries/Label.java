@@ -16,6 +16,9 @@ public interface Label {
   /** 3.4.3 Register itinerary. */
   String REGISTER_ITINERARY = "Registar itinerário para um passageiro";
 
+  /** 3.4.5 Register itinerary arriving by a given time. */
+  String REGISTER_ARRIVE_BY_ITINERARY = "Registar itinerário para um passageiro, por hora de chegada";
+
   /** 3.4.4 Show service histograms. */
   String SHOW_SERVICE_HISTOGRAMS = "Mostrar histogramas por serviço";
 
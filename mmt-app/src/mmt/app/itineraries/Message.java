@@ -47,6 +47,13 @@ public final class Message {
     return "Hora de partida (HH:MM): ";
   }
 
+  /**
+   * @return prompt for time
+   */
+  public static String requestArrivalTime() {
+    return "Hora de chegada (HH:MM): ";
+  }
+
   /**
    * @return prompt for itinerary choice
    */
@@ -0,0 +1,244 @@
+package mmt;
+
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+
+
+/** Map from int ids to objects, for ids which are mostly dense (0, 1, 2, ...
+  * or close to it): the objects are kept in an array indexed by id, so
+  * looking one up is an array access, without boxing. The few ids which
+  * would make the array too sparse (negative ones, or ones much larger than
+  * the number of objects) are kept in a TreeMap instead.
+  * Iteration is by ascending id. Null objects can't be kept.
+  * @param <V> the type of the objects
+  */
+
+public class IdRegistry<V> extends AbstractMap<Integer, V> implements Serializable {
+
+	/** The objects with ids from 0 to the length of the array (null where
+		* there is none). */
+	private Object[] _dense = new Object[16];
+	/** The number of objects in _dense. */
+	private int _denseNumber = 0;
+	/** The objects with ids outside of _dense. */
+	private TreeMap<Integer, V> _sparse = new TreeMap<Integer, V>();
+
+
+
+	/** Constructor for class IdRegistry (empty). */
+	public IdRegistry() {}
+
+	/** Constructor for class IdRegistry, with the objects of a Map.
+		* @param map
+		*/
+	public IdRegistry(Map<Integer, ? extends V> map) {
+		putAll(map);
+	}
+
+
+
+	/** @return the number of objects */
+	@Override
+	public int size() {return _denseNumber + _sparse.size();}
+
+
+	/** @param id
+		* @return the object with that id, or null if there is none
+		*/
+	@SuppressWarnings("unchecked")
+	public V get(int id) {
+		if(id >= 0 && id < _dense.length)
+			return (V) _dense[id];
+		return _sparse.get(id);
+	}
+
+	/** @param id
+		* @return true if there is an object with that id
+		*/
+	public boolean containsKey(int id) {
+		return get(id) != null;
+	}
+
+
+	/** Keeps an object with an id, replacing the one with the same id.
+		* @param id
+		* @param value (not null)
+		* @return the object replaced, or null if there was none
+		*/
+	@SuppressWarnings("unchecked")
+	public V put(int id, V value) {
+		if(value == null)
+			throw new NullPointerException();
+		if(id >= _dense.length)
+			grow(id);
+		if(id < 0 || id >= _dense.length)
+			return _sparse.put(id, value);
+		V previous = (V) _dense[id];
+		_dense[id] = value;
+		if(previous == null)
+			_denseNumber++;
+		return previous;
+	}
+
+	/** @param id
+		* @return the object removed, or null if there was none
+		*/
+	@SuppressWarnings("unchecked")
+	public V remove(int id) {
+		if(id < 0 || id >= _dense.length)
+			return _sparse.remove(id);
+		V previous = (V) _dense[id];
+		_dense[id] = null;
+		if(previous != null)
+			_denseNumber--;
+		return previous;
+	}
+
+
+	/** Makes _dense long enough for id, if it stays at most about four times
+		* longer than the number of objects, moving the objects of the new ids
+		* from _sparse.
+		* @param id
+		*/
+	private void grow(int id) {
+		int length = _dense.length;
+		while(length <= id && length < Integer.MAX_VALUE / 2)
+			length *= 2;
+		if(length <= id || length > 4 * size() + 64)
+			return;
+
+		int old = _dense.length;
+		_dense = Arrays.copyOf(_dense, length);
+		Map<Integer, V> moved = _sparse.subMap(old, length);
+		for(Map.Entry<Integer, V> entry : moved.entrySet()) {
+			_dense[entry.getKey()] = entry.getValue();
+			_denseNumber++;
+		}
+		moved.clear();
+	}
+
+
+
+	/** @see java.util.AbstractMap#get(Object) */
+	@Override
+	public V get(Object key) {
+		return key instanceof Integer ? get(((Integer) key).intValue()) : null;
+	}
+
+	/** @see java.util.AbstractMap#containsKey(Object) */
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	/** @see java.util.AbstractMap#put(Object,Object) */
+	@Override
+	public V put(Integer key, V value) {
+		return put(key.intValue(), value);
+	}
+
+	/** @see java.util.AbstractMap#remove(Object) */
+	@Override
+	public V remove(Object key) {
+		return key instanceof Integer ? remove(((Integer) key).intValue()) : null;
+	}
+
+	/** @see java.util.AbstractMap#clear() */
+	@Override
+	public void clear() {
+		Arrays.fill(_dense, null);
+		_denseNumber = 0;
+		_sparse.clear();
+	}
+
+
+
+
+	/** @return the entries, by ascending id: the negative ids of _sparse,
+		* then _dense, then the rest of _sparse
+		*/
+	@Override
+	public Set<Map.Entry<Integer, V>> entrySet() {
+		return new AbstractSet<Map.Entry<Integer, V>>() {
+			@Override
+			public int size() {
+				return IdRegistry.this.size();
+			}
+
+			@Override
+			public Iterator<Map.Entry<Integer, V>> iterator() {
+				return new Iterator<Map.Entry<Integer, V>>() {
+					/** The last id of _sparse returned (null if there is none). */
+					private Integer _sparseId = null;
+					/** The next id of _dense to return. */
+					private int _next = nextDense(0);
+					/** The id of the last entry returned (null if it can't be removed). */
+					private Integer _last = null;
+
+					/** @return the next entry of _sparse with a negative id, or null */
+					private Map.Entry<Integer, V> nextNegative() {
+						Map.Entry<Integer, V> res = _sparseId == null ? _sparse.firstEntry() :
+_sparse.higherEntry(_sparseId);
+						return res != null && res.getKey() < 0 ? res : null;
+					}
+
+					/** @return the next entry of _sparse with a positive id, or null */
+					private Map.Entry<Integer, V> nextPositive() {
+						return _sparseId == null || _sparseId < 0 ? _sparse.ceilingEntry(0) :
+_sparse.higherEntry(_sparseId);
+					}
+
+					@Override
+					public boolean hasNext() {
+						return nextNegative() != null || _next < _dense.length || nextPositive() != null;
+					}
+
+					@Override
+					@SuppressWarnings("unchecked")
+					public Map.Entry<Integer, V> next() {
+						Map.Entry<Integer, V> res = nextNegative();
+						if(res == null && _next < _dense.length) {
+							res = new AbstractMap.SimpleImmutableEntry<Integer, V>(_next,
+(V) _dense[_next]);
+							_next = nextDense(_next + 1);
+						}
+						else {
+							if(res == null && (res = nextPositive()) == null)
+								throw new NoSuchElementException();
+							_sparseId = res.getKey();
+						}
+						_last = res.getKey();
+						return res;
+					}
+
+					@Override
+					public void remove() {
+						if(_last == null)
+							throw new IllegalStateException();
+						IdRegistry.this.remove(_last.intValue());
+						_last = null;
+					}
+				};
+			}
+		};
+	}
+
+	/** @return the first id of _dense, from id, with an object (or the
+		* length of _dense)
+		*/
+	private int nextDense(int id) {
+		while(id < _dense.length && _dense[id] == null)
+			id++;
+		return id;
+	}
+
+}
@@ -2,11 +2,11 @@ package mmt;
 
 
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.time.Duration;
 import java.io.Serializable;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 
 
@@ -20,17 +20,51 @@ import java.util.Comparator;
 public class Itinerary implements Comparable<Itinerary>, Serializable{
 
 	/** This Itinerary's date (day/month/year). */
-	private LocalDate _date;
-	/** An Itinerary is made of ServiceSegments */
-	private List<ServiceSegment> _serviceSegments = new ArrayList<ServiceSegment>();
+	private final LocalDate _date;
+	/** An Itinerary is made of ServiceSegments (which can't be changed). */
+	private final List<ServiceSegment> _serviceSegments;
+	/** This Itinerary's cost. */
+	private final double _cost;
+	/** This Itinerary's duration (minutes). */
+	private final int _minutes;
+	/** The departure minute and then the arrival minute, packed for
+		* comparisons. */
+	private final int _key;
 
 
 
 	/** Constructor for class Itinerary.
 		* @param date this Itinerary's date
+		* @param serviceSegments this Itinerary's ServiceSegments (at least one),
+		* in order (the list is copied)
 		*/
-	public Itinerary(LocalDate date) {
+	public Itinerary(LocalDate date, List<ServiceSegment> serviceSegments) {
 		_date = date;
+		_serviceSegments = Collections.unmodifiableList(
+new ArrayList<ServiceSegment>(serviceSegments));
+		double cost = 0;
+		for (ServiceSegment ss : _serviceSegments)
+			cost += ss.getCost();
+		_cost = cost;
+		ServiceSegment first = _serviceSegments.get(0);
+		ServiceSegment last = _serviceSegments.get(_serviceSegments.size() - 1);
+		int departure = first.getService().getMinutes(first.getFirstStop());
+		int arrival = last.getService().getMinutes(last.getLastStop());
+		_minutes = arrival - departure;
+		_key = departure << 11 | arrival;
+	}
+
+	/** Constructor for class Itinerary, with the ServiceSegments of another
+		* Itinerary.
+		* @param date this Itinerary's date
+		* @param itinerary
+		*/
+	Itinerary(LocalDate date, Itinerary itinerary) {
+		_date = date;
+		_serviceSegments = itinerary._serviceSegments;
+		_cost = itinerary._cost;
+		_minutes = itinerary._minutes;
+		_key = itinerary._key;
 	}
 
 
@@ -41,27 +75,16 @@ public class Itinerary implements Comparable<Itinerary>, Serializable{
 	/** @return the number of Segments in this Itinerary */
 	public int getSegmentNumber() {return _serviceSegments.size();}
 
+	/** @return this Itinerary's ServiceSegments (the list can't be changed) */
+	public List<ServiceSegment> getServiceSegments() {return _serviceSegments;}
 
-
-
-
-
-	/** Appends a ServiceSegment to list of existent ServiceSegments
-		* @param ServiceSegment
-		*/
-	public void addServiceSegment(ServiceSegment serviceSegment) {
-		_serviceSegments.add(serviceSegment);
-	}
+	/** @return the Station (and time) where this Itinerary begins */
+	public Station getDepartingStation() {return _serviceSegments.get(0).getFirstStation();}
 
 
 
 	/** @return this Itinerary's cost */
-	public double getCost() {
-		double cost = 0;
-		for (ServiceSegment ss : _serviceSegments)
-			cost += ss.getCost();
-		return cost;
-	}
+	public double getCost() {return _cost;}
 
 
 
@@ -69,10 +92,12 @@ public class Itinerary implements Comparable<Itinerary>, Serializable{
 		* the departure Station and the arrival Station (therefore, the time the
 		* Passenger is waiting at any Station for a train is also counted)
 		*/
-	public Duration getTime() {
-		return _serviceSegments.get(0).getFirstStation().getTimeInBetween(
-_serviceSegments.get(_serviceSegments.size() - 1).getLastStation());
-	}
+	public Duration getTime() {return Duration.ofMinutes(_minutes);}
+
+	/** @return the duration (minutes) of this Itinerary
+		* @see mmt.Itinerary#getTime()
+		*/
+	public int getMinutes() {return _minutes;}
 
 
 
@@ -80,31 +105,16 @@ _serviceSegments.get(_serviceSegments.size() - 1).getLastStation());
 
 
 	/** Defines the natural order of Itineraries. By ascending order and hierarchically
-		* by the following criteria: Departure time; Arrival time; Cost.
+		* by the following criteria: Departure time; Arrival time (Itineraries
+		* which only differ by their cost have always been "equal", so sorting
+		* keeps them in the order they were found).
 		* @param itinerary
 		* @return 1 if this Itinerary is greater than itinerary, 0 if they are
 		* "equal", and -1 otherwise
 		*/
 	@Override
 	public int compareTo(Itinerary itinerary) {
-		long difference = this._serviceSegments.get(0).getFirstStation().getTimeInBetween(
-itinerary._serviceSegments.get(0).getFirstStation()).toMinutes();
-		if(difference == 0)
-			difference = this._serviceSegments.get(this._serviceSegments.size() - 1
-).getLastStation().getTimeInBetween(itinerary._serviceSegments.get(
-itinerary._serviceSegments.size() - 1).getLastStation()).toMinutes();
-		if(difference == 0) {
-			double costDifference = this.getCost() - itinerary.getCost();
-			if(costDifference > 0)
-				difference = 1;
-			else if (costDifference < 0)
-				difference = -1;
-		}
-		else if(difference < 0)
-			return 1;
-		else if (difference > 0)
-			return -1;
-		return 0;
+		return Integer.compare(_key, itinerary._key);
 	}
 
 
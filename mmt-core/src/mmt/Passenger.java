@@ -7,6 +7,10 @@ import mmt.categories.Normal;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.Duration;
 import java.io.Serializable;
@@ -26,8 +30,19 @@ public class Passenger implements Serializable{
 	/** This Passenger's category. */
 	private Category _category = new Normal(this, 0);
 
-	/** This Passenger's itineraries. */
-	private List<Itinerary> _itineraries = new ArrayList<Itinerary>();
+	/** This Passenger's itineraries, packed one after the other: the epoch
+		* day, the number of segments and then, for each segment, the
+		* Service's id and the positions of its first and last stops. */
+	private int[] _itineraries = new int[16];
+	/** The number of ints used in _itineraries. */
+	private int _itinerariesSize = 0;
+	/** Where each Itinerary begins in _itineraries. */
+	private int[] _starts = new int[4];
+	/** The number of Itineraries. */
+	private int _itinerariesNumber = 0;
+
+	/** The Services of the TrainCompany, by id (to rebuild the Itineraries). */
+	private IdRegistry<Service> _services;
 
 	/** This Passenger's total money spent */
 	private double _moneySpent = 0;
@@ -42,10 +57,12 @@ public class Passenger implements Serializable{
 	/** Constructor for class Passenger.
 		* @param name Passenger's name
 		* @param id Passenger's id
+		* @param services the Services of the Itineraries, by id
 		*/
-	public Passenger(String name, int id) {
+	public Passenger(String name, int id, IdRegistry<Service> services) {
 		_name = name;
 		_id = id;
+		_services = services;
 	}
 
 
@@ -60,8 +77,33 @@ public class Passenger implements Serializable{
 	public double getMoneySpent() {return _moneySpent;}
 	/** @return this Passenger's time spent */
 	public Duration getTimeSpent() {return _timeSpent;}
-	/** @return this Passenger's Itineraries */
-	public List<Itinerary> getItineraries() {return _itineraries;}
+	/** @return the number of Itineraries of this Passenger */
+	public int getItineraryNumber() {return _itinerariesNumber;}
+
+
+	/** @param i
+		* @return this Passenger's i-th Itinerary (built from its packed form)
+		*/
+	public Itinerary getItinerary(int i) {
+		if(i < 0 || i >= _itinerariesNumber)
+			throw new IndexOutOfBoundsException("" + i);
+		int start = _starts[i];
+		List<ServiceSegment> segments = new ArrayList<ServiceSegment>();
+		for(int j = start + 2; j < start + 2 + 3 * _itineraries[start + 1]; j += 3)
+			segments.add(new ServiceSegment(_services.get(_itineraries[j]),
+_itineraries[j + 1], _itineraries[j + 2]));
+		return new Itinerary(LocalDate.ofEpochDay(_itineraries[start]), segments);
+	}
+
+	/** @return this Passenger's Itineraries (the list can't be changed)
+		* @see mmt.Passenger#getItinerary(int)
+		*/
+	public List<Itinerary> getItineraries() {
+		List<Itinerary> res = new ArrayList<Itinerary>(_itinerariesNumber);
+		for(int i = 0; i < _itinerariesNumber; i++)
+			res.add(getItinerary(i));
+		return Collections.unmodifiableList(res);
+	}
 
 
 
@@ -87,20 +129,71 @@ public class Passenger implements Serializable{
 	 	*/
 	public void addItinerary(Itinerary itinerary) {
 
-		_itineraries.add(itinerary);
+		pack(itinerary);
 		_moneySpent += _category.applyDiscount(itinerary.getCost());
 		_timeSpent = _timeSpent.plus(itinerary.getTime());
 
 		double cost = 0;
-		if(_itineraries.size() > 10)
+		if(_itinerariesNumber > 10)
 		/* The cost of the last ten Itineraries is calculated by adding the
 difference between the newly added Itinerary and the 11th Itinerary (if it exists). */
-			cost = _itineraries.get(_itineraries.size() - 11).getCost();
+			cost = getItinerary(_itinerariesNumber - 11).getCost();
 
 		_category.updateCost(itinerary.getCost() - cost);
 	}
 
 
+	/** Appends the packed form of an Itinerary to _itineraries.
+		* @param itinerary
+		*/
+	private void pack(Itinerary itinerary) {
+		int size = 2 + 3 * itinerary.getSegmentNumber();
+		if(_itinerariesSize + size > _itineraries.length)
+			_itineraries = Arrays.copyOf(_itineraries, Math.max(_itinerariesSize + size,
+_itineraries.length * 2));
+		if(_itinerariesNumber == _starts.length)
+			_starts = Arrays.copyOf(_starts, _itinerariesNumber * 2);
+
+		_starts[_itinerariesNumber++] = _itinerariesSize;
+		_itineraries[_itinerariesSize++] = (int) itinerary.getDate().toEpochDay();
+		_itineraries[_itinerariesSize++] = itinerary.getSegmentNumber();
+		for(ServiceSegment segment : itinerary.getServiceSegments()) {
+			_itineraries[_itinerariesSize++] = segment.getId();
+			_itineraries[_itinerariesSize++] = segment.getFirstStop();
+			_itineraries[_itinerariesSize++] = segment.getLastStop();
+		}
+	}
+
+
+	/** Sorts this Passenger's Itineraries by ascending date (the ones of
+		* the same date keep their order).
+		*/
+	public void sortItinerariesByDate() {
+		Integer[] order = new Integer[_itinerariesNumber];
+		for(int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i1, Integer i2) {
+				return Integer.compare(_itineraries[_starts[i1]], _itineraries[_starts[i2]]);
+			}
+		});
+
+		int[] itineraries = new int[_itineraries.length];
+		int[] starts = new int[_starts.length];
+		int size = 0;
+		for(int i = 0; i < order.length; i++) {
+			int start = _starts[order[i]];
+			int length = 2 + 3 * _itineraries[start + 1];
+			System.arraycopy(_itineraries, start, itineraries, size, length);
+			starts[i] = size;
+			size += length;
+		}
+		_itineraries = itineraries;
+		_starts = starts;
+	}
+
+
 
 
 
@@ -119,7 +212,7 @@ difference between the newly added Itinerary and the 11th Itinerary (if it exist
 		String time = String.format("%02d", _timeSpent.toHours()) + ":" +
 String.format("%02d", _timeSpent.toMinutes() % 60);
 
-		return _id + "|" + _name + "|" + _category + "|" + _itineraries.size()
+		return _id + "|" + _name + "|" + _category + "|" + _itinerariesNumber
 + "|" + String.format("%.2f", _moneySpent) + "|" + time;
 
 	}
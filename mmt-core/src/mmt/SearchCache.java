@@ -0,0 +1,182 @@
+package mmt;
+
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.LinkedHashMap;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+
+
+/** Bounded cache of search results, keyed by departure station, arrival
+  * station and departure time bucket. When it is full, the least recently
+  * used entry is evicted.
+  * An entry holds the (sorted) Itineraries found from the beginning of its
+  * bucket; a search later in the bucket gets the ones leaving at or after
+  * its time. With buckets of one minute (the default) that is exactly the
+  * search's result; with wider buckets it is exact for the engines which
+  * give one Itinerary per departing Service regardless of the time asked
+  * (ConnectionScan and DepthFirstSearch).
+  * It must be cleared whenever the Services change.
+  * @see mmt.TrainCompany#search(Station,Station,LocalDate)
+  */
+
+public class SearchCache {
+
+  /** Default maximum number of entries. */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+
+  /** Maximum number of entries. */
+  private int _capacity;
+  /** Width of the time buckets, in minutes. */
+  private int _bucketWidth;
+
+  /** The results by key, from the least to the most recently used. */
+  private Map<Long, Entry> _entries;
+
+  /** Number of searches answered by the cache. */
+  private long _hits = 0;
+  /** Number of searches which were not in the cache. */
+  private long _misses = 0;
+
+
+
+  /** The Itineraries found for a key, and their date. */
+  private static class Entry {
+    /** The date of the Itineraries. */
+    LocalDate _date;
+    /** The Itineraries, sorted. */
+    List<Itinerary> _itineraries;
+
+    Entry(LocalDate date, List<Itinerary> itineraries) {
+      _date = date;
+      _itineraries = itineraries;
+    }
+  }
+
+
+
+  /** Constructor for class SearchCache (with the default capacity and
+    * buckets of one minute).
+    */
+  public SearchCache() {
+    this(DEFAULT_CAPACITY, 1);
+  }
+
+  /** Constructor for class SearchCache.
+    * @param capacity maximum number of entries
+    * @param bucketWidth width of the time buckets, in minutes
+    */
+  public SearchCache(final int capacity, int bucketWidth) {
+    if(capacity < 1 || bucketWidth < 1)
+      throw new IllegalArgumentException("capacity and bucket width must be positive");
+    _capacity = capacity;
+    _bucketWidth = bucketWidth;
+    _entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 201712021000L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+
+
+
+  /** @return the maximum number of entries */
+  public int getCapacity() {return _capacity;}
+  /** @return the width of the time buckets, in minutes */
+  public int getBucketWidth() {return _bucketWidth;}
+  /** @return the number of entries */
+  public int size() {return _entries.size();}
+  /** @return the number of searches answered by the cache */
+  public long getHits() {return _hits;}
+  /** @return the number of searches which were not in the cache */
+  public long getMisses() {return _misses;}
+
+
+  /** @param departure a registered Station
+    * @return the time at which the bucket of departure's time begins
+    */
+  public LocalTime getBucketStart(Station departure) {
+    int minutes = departure.getMinutes();
+    minutes -= minutes % _bucketWidth;
+    return LocalTime.of(minutes / 60, minutes % 60);
+  }
+
+
+  /** @return the key of a search */
+  private long key(Station departure, Station arrival) {
+    int minutes = departure.getMinutes();
+    return ((long) departure.getId() << 38) | ((long) arrival.getId() << 12) |
+(minutes / _bucketWidth);
+  }
+
+
+  /** @param departure a registered Station, at the search's time
+    * @param arrival a registered Station
+    * @param localdate the Itineraries' date
+    * @return the sorted Itineraries leaving departure at or after its time,
+    * or null if they are not in the cache
+    */
+  public List<Itinerary> get(Station departure, Station arrival, LocalDate localdate) {
+    Entry entry = departure.getId() < 0 || arrival.getId() < 0 ? null :
+_entries.get(key(departure, arrival));
+    if(entry == null) {
+      _misses++;
+      return null;
+    }
+    _hits++;
+    return select(entry, departure, localdate);
+  }
+
+
+  /** @return the Itineraries of entry leaving departure at or after its
+    * time, with the date localdate
+    */
+  private static List<Itinerary> select(Entry entry, Station departure, LocalDate localdate) {
+    List<Itinerary> res = new ArrayList<Itinerary>();
+    for(Itinerary itinerary : entry._itineraries)
+      if(departure.getTimeInBetween(itinerary.getDepartingStation()).toMinutes() >= 0)
+        res.add(entry._date.equals(localdate) ? itinerary : new Itinerary(localdate, itinerary));
+    return res;
+  }
+
+
+  /** Keeps the result of a search from the beginning of a bucket.
+    * @param departure a registered Station, at the search's time
+    * @param arrival a registered Station
+    * @param localdate the Itineraries' date
+    * @param itineraries the sorted Itineraries found from the beginning of
+    * departure's bucket
+    * @return the Itineraries leaving departure at or after its time
+    * @see mmt.SearchCache#getBucketStart(Station)
+    */
+  public List<Itinerary> put(Station departure, Station arrival, LocalDate localdate,
+List<Itinerary> itineraries) {
+    Entry entry = new Entry(localdate, new ArrayList<Itinerary>(itineraries));
+    if(departure.getId() >= 0 && arrival.getId() >= 0)
+      _entries.put(key(departure, arrival), entry);
+    return select(entry, departure, localdate);
+  }
+
+
+  /** Removes every entry (the statistics are kept). */
+  public void clear() {
+    _entries.clear();
+  }
+
+
+  /** @return the statistics of this cache */
+  @Override
+  public String toString() {
+    return "SearchCache: " + size() + "/" + _capacity + " entries, " + _hits +
+" hits, " + _misses + " misses";
+  }
+
+}
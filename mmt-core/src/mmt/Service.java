@@ -2,11 +2,12 @@ package mmt;
 
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.List;
-import java.util.LinkedList;
+import java.util.NoSuchElementException;
 import java.util.Comparator;
 import java.time.Duration;
+import java.time.LocalTime;
 
 
 
@@ -22,8 +23,14 @@ public class Service implements Serializable, Iterable<Station> {
 	private int _id;
 	/** This Service's total cost. */
 	private double _cost;
-	/** This Service's aggregation of Stations. */
-	private LinkedList<Station> _stations = new LinkedList<Station>();
+	/** The number of stops of this Service. */
+	private int _size = 0;
+	/** The station name of each stop. */
+	private String[] _names = new String[4];
+	/** The station id of each stop (-1 while it isn't registered). */
+	private int[] _stationIds = new int[4];
+	/** The minute of the day of each stop. */
+	private int[] _minutes = new int[4];
 
 
 
@@ -47,25 +54,87 @@ public class Service implements Serializable, Iterable<Station> {
 
 
 	/** Adds a Station to this Service (adds to end of the aggregation).
+		* Only its name, id and time (in minutes) are kept.
 		* @param station the new Station
 		*/
 	public void addStation(Station station) {
-		_stations.add(station);
+		if(_size == _minutes.length) {
+			_names = Arrays.copyOf(_names, _size * 2);
+			_stationIds = Arrays.copyOf(_stationIds, _size * 2);
+			_minutes = Arrays.copyOf(_minutes, _size * 2);
+		}
+		_names[_size] = station.getName();
+		_stationIds[_size] = station.getId();
+		_minutes[_size] = station.getMinutes();
+		_size++;
+	}
+
+
+	/** Gives the stops of this Service the ids of their station names (and
+		* shares the names with the registry).
+		* @param registry
+		*/
+	void register(StationRegistry registry) {
+		for(int i = 0; i < _size; i++) {
+			_stationIds[i] = registry.register(_names[i]);
+			_names[i] = registry.getStation(_stationIds[i]).getName();
+		}
+	}
+
+
+
+	/** @return the number of stops of this Service */
+	public int getStopNumber() {return _size;}
+
+	/** @param position a stop's position (starting at 0)
+		* @return the station id of that stop (-1 if it isn't registered)
+		*/
+	public int getStationId(int position) {return _stationIds[position];}
+
+	/** @param position a stop's position (starting at 0)
+		* @return the minute of the day of that stop
+		*/
+	public int getMinutes(int position) {return _minutes[position];}
+
+	/** @param position a stop's position (starting at 0)
+		* @return a Station representing that stop
+		*/
+	public Station getStation(int position) {
+		if(position < 0 || position >= _size)
+			throw new IndexOutOfBoundsException("" + position);
+		return new Station(_names[position], LocalTime.of(_minutes[position] / 60,
+_minutes[position] % 60), _stationIds[position]);
 	}
 
 
 
 	/** @return the last Station of this Service */
-	public Station getArrivingStation() {return _stations.getLast();}
+	public Station getArrivingStation() {return getStation(_size - 1);}
 
 
 	/** @return the first Station of this Service */
-	public Station getDepartingStation() {return _stations.getFirst();}
+	public Station getDepartingStation() {return getStation(0);}
 
 
 	/** @return the total time (minutes) between the first and last Station */
 	public Duration getTime() {
-		return getDepartingStation().getTimeInBetween(getArrivingStation());
+		return Duration.ofMinutes(getMinutes(0, _size - 1));
+	}
+
+	/** @param first a stop's position
+		* @param last a later stop's position
+		* @return the time (minutes) between the two stops
+		*/
+	public int getMinutes(int first, int last) {
+		return _minutes[last] - _minutes[first];
+	}
+
+	/** The cost of a part of this Service is prorated to its time.
+		* @param minutes the time of a part of this Service
+		* @return the cost of that part
+		*/
+	public double getCost(long minutes) {
+		return minutes * _cost / getMinutes(0, _size - 1);
 	}
 
 
@@ -73,7 +142,36 @@ public class Service implements Serializable, Iterable<Station> {
 		* @return true if this Service has the Station given as argument
 		*/
 	public boolean hasStation(Station station) {
-		return _stations.contains(station);
+		return findStop(station, 0) >= 0;
+	}
+
+	/** @param station
+		* @param from the first position to look at
+		* @return the position of the first stop at station from position from,
+		* or -1 if there is none
+		*/
+	public int findStop(Station station, int from) {
+		for(int i = from; i < _size; i++)
+			if(station.getId() >= 0 && _stationIds[i] >= 0 ? station.getId() == _stationIds[i] :
+station.getName().equals(_names[i]))
+				return i;
+		return -1;
+	}
+
+	/** @param minutes a minute of the day
+		* @return the position of the first stop at or after minutes (the stops
+		* are in chronological order), or the number of stops if there is none
+		*/
+	public int firstStopAfter(int minutes) {
+		int low = 0, high = _size;
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(_minutes[middle] < minutes)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
 	}
 
 
@@ -88,7 +186,21 @@ public class Service implements Serializable, Iterable<Station> {
 		*/
 	@Override
 	public Iterator<Station> iterator() {
-		return _stations.listIterator();
+		return new Iterator<Station>() {
+			private int _position = 0;
+
+			@Override
+			public boolean hasNext() {
+				return _position < _size;
+			}
+
+			@Override
+			public Station next() {
+				if(!hasNext())
+					throw new NoSuchElementException();
+				return getStation(_position++);
+			}
+		};
 	}
 
 
@@ -105,7 +217,7 @@ public class Service implements Serializable, Iterable<Station> {
 	@Override
 	public String toString() {
 		String res = "Serviço #" + _id + " @ " + String.format("%.2f", _cost);
-		for (Station station : _stations)
+		for (Station station : this)
 			res += "\n" + station;
 		return res;
 	}
@@ -125,7 +237,7 @@ public class Service implements Serializable, Iterable<Station> {
 		return new Comparator<Service>() {
 			@Override
 			public int compare(Service service1, Service service2) {
-				long difference = service2.getArrivingStation().getTimeInBetween(service1.getArrivingStation()).toMinutes();
+				long difference = service1._minutes[service1._size - 1] - service2._minutes[service2._size - 1];
 				if(difference > 0)
 					return 1;
 				else if(difference < 0)
@@ -146,7 +258,7 @@ public class Service implements Serializable, Iterable<Station> {
 		return new Comparator<Service>() {
 			@Override
 			public int compare(Service service1, Service service2) {
-				long difference = service2.getDepartingStation().getTimeInBetween(service1.getDepartingStation()).toMinutes();
+				long difference = service1._minutes[0] - service2._minutes[0];
 				if(difference > 0)
 					return 1;
 				else if(difference < 0)
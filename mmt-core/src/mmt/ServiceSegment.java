@@ -1,15 +1,13 @@
 package mmt;
 
 import java.time.Duration;
-import java.util.List;
-import java.util.Iterator;
 import java.io.Serializable;
 
 
 
 /** Class for representing a fraction or a segment of a Service. This is done
-  * by having a reference to an actual Service and the two Stations which
-  * limit this segment
+  * by having a reference to an actual Service and the positions of the two
+  * stops which limit this segment
   */
 
 
@@ -18,30 +16,42 @@ public class ServiceSegment implements Serializable {
 
   /** This ServiceSegment's Service */
   private Service _service;
-  /** The Station in which this ServiceSegment begins */
-  private Station _firstStation;
-  /** The Station in which this ServiceSegment ends */
-  private Station _lastStation;
+  /** The position (in the Service) of the stop where this ServiceSegment begins */
+  private int _first;
+  /** The position (in the Service) of the stop where this ServiceSegment ends */
+  private int _last;
 
 
 
   /** @return the first Station */
-  public Station getFirstStation() {return _firstStation;}
+  public Station getFirstStation() {return _service.getStation(_first);}
   /** @return the last Station */
-  public Station getLastStation() {return _lastStation;}
+  public Station getLastStation() {return _service.getStation(_last);}
+  /** @return the position (in the Service) of the first stop */
+  public int getFirstStop() {return _first;}
+  /** @return the position (in the Service) of the last stop */
+  public int getLastStop() {return _last;}
+  /** @return the Service */
+  public Service getService() {return _service;}
   /** @return the Service's id */
   public int getId() {return _service.getId();}
 
 
   /** Constructor for class ServiceSegment
     * @param service
-    * @param first
-    * @param last
+    * @param first the position of the stop where it begins
+    * @param last the position of the stop where it ends; it may come before
+    * first, as the DepthFirstSearch tries changes at every stop of a trip,
+    * including the ones before it was boarded (such a segment goes back in
+    * time, so its minutes and cost are negative)
     */
-  public ServiceSegment(Service service, Station first, Station last) {
+  public ServiceSegment(Service service, int first, int last) {
+    if(first < 0 || last < 0 || first >= service.getStopNumber() ||
+last >= service.getStopNumber())
+      throw new IndexOutOfBoundsException(first + ".." + last);
     _service = service;
-    _firstStation = first;
-    _lastStation = last;
+    _first = first;
+    _last = last;
   }
 
 
@@ -50,13 +60,28 @@ public class ServiceSegment implements Serializable {
 
   /** @return the duration between the first and last Station */
   public Duration getTime() {
-    return _firstStation.getTimeInBetween(_lastStation);
+    return Duration.ofMinutes(getMinutes());
+  }
+
+  /** @return the time (minutes) between the first and last Station */
+  public int getMinutes() {
+    return _service.getMinutes(_first, _last);
   }
 
 
   /** @return the cost between the first and last Station */
   public double getCost() {
-    return getTime().toMinutes() * _service.getCost() / _service.getTime().toMinutes();
+    return _service.getCost(getMinutes());
+  }
+
+
+  /** @return the position of the last stop shown, which is the last stop
+    * (or the Service's last stop, if the last stop is before the first, as
+    * in the segments of the DepthFirstSearch which change trains at a stop
+    * before the boarding one)
+    */
+  private int end() {
+    return _last >= _first ? _last : _service.getStopNumber() - 1;
   }
 
 
@@ -64,18 +89,8 @@ public class ServiceSegment implements Serializable {
 		* @return true if this ServiceSegment has the Station given as argument
 		*/
 	public boolean hasStation(Station station) {
-    Station first = null;
-		for(Station s : _service) {
-      if(s.equals(_firstStation))
-        first = s;
-      if(s.equals(station))
-        if(first != null)
-          return true;
-      if(s.equals(_lastStation))
-        break;
-    }
-    return false;
-
+    int position = _service.findStop(station, _first);
+    return position >= 0 && position <= end();
 	}
 
 
@@ -88,23 +103,9 @@ public class ServiceSegment implements Serializable {
     */
   @Override
   public String toString() {
-
     String res = "Serviço #" + _service.getId() + " @ " + String.format("%.2f", getCost());
-
-    Iterator<Station> iterator = _service.iterator();
-    Station station;
-
-    if(!iterator.hasNext())
-      return res; //shouldn't happen
-    do {
-      station = iterator.next();
-    } while(iterator.hasNext() && !station.equals(_firstStation));
-
-    res += "\n" + station;
-    while(iterator.hasNext() && !station.equals(_lastStation)) {
-      station = iterator.next();
-      res += "\n" + station;
-    }
+    for(int p = _first; p <= end(); p++)
+      res += "\n" + _service.getStation(p);
     return res;
   }
 }
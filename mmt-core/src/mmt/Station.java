@@ -20,6 +20,8 @@ public class Station implements Serializable {
 	private String _name;
 	/** This Station's time (of departure). */
 	private LocalTime _time;
+	/** This Station's id in a StationRegistry (-1 if it isn't registered). */
+	private int _id = -1;
 
 
 
@@ -40,12 +42,42 @@ public class Station implements Serializable {
 		_time = time;
 	}
 
+	/** Constructor for class Station, for an already registered name.
+		* @param name Station's name
+		* @param time Station's time
+		* @param id the name's id
+		* @see mmt.StationRegistry
+		*/
+	Station(String name, LocalTime time, int id) {
+		_name = name;
+		_time = time;
+		_id = id;
+	}
+
 
 
 	/** @return this Station's name */
 	public String getName() {return _name;}
 	/** @return this Station's time */
 	public LocalTime getTime() {return _time;}
+	/** @return this Station's id (-1 if it isn't registered) */
+	public int getId() {return _id;}
+	/** @return this Station's time, as a minute of the day */
+	public int getMinutes() {return minutes(_time);}
+
+	/** @param time
+		* @return the minute of the day of time
+		*/
+	public static int minutes(LocalTime time) {
+		return time.getHour() * 60 + time.getMinute();
+	}
+
+
+
+	/** Sets this Station's id (only done by the StationRegistry).
+		* @param id
+		*/
+	void setId(int id) {_id = id;}
 
 
 
@@ -62,7 +94,8 @@ public class Station implements Serializable {
 
 
 	/** Tests whether this Station and an object are equal.
-	  * This is done by comparing their names.
+	  * This is done by comparing their names (or just their ids, if both
+		* are registered).
 		* @param o the Object we are comparing this Station with
 		* @return true if they are equal
 		*/
@@ -70,11 +103,19 @@ public class Station implements Serializable {
 	public boolean equals(Object o) {
 		if(o instanceof Station) {
 			Station station = (Station) o;
+			if(_id >= 0 && station._id >= 0)
+				return _id == station._id;
 			return _name.equals(station.getName());
 		}
 		return false;
 	}
 
+	/** @return the hash code of this Station (the one of its name) */
+	@Override
+	public int hashCode() {
+		return _name.hashCode();
+	}
+
 
 
 	/** @return the string representation of a Station:
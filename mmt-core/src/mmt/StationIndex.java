@@ -0,0 +1,123 @@
+package mmt;
+
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+
+
+
+/** Inverted index from each station (by its registered id) to the stops
+  * Services make there, so that finding the Services which go through a
+  * station does not require going through every Service.
+  * @see mmt.StationRegistry
+  */
+
+public class StationIndex {
+
+  /** A stop of a Service at a station. */
+  public static class Stop {
+    /** The Service. */
+    private Service _service;
+    /** The stop's position in the Service (starting at 0). */
+    private int _position;
+    /** The Service's Station at that position. */
+    private Station _station;
+
+    /** Constructor for class Stop.
+      * @param service
+      * @param position
+      * @param station
+      */
+    public Stop(Service service, int position, Station station) {
+      _service = service;
+      _position = position;
+      _station = station;
+    }
+
+    /** @return the Service */
+    public Service getService() {return _service;}
+    /** @return the stop's position in the Service */
+    public int getPosition() {return _position;}
+    /** @return the Service's Station at that position */
+    public Station getStation() {return _station;}
+  }
+
+
+
+  /** The stops at each station (indexed by station id), by ascending
+    * Service id and position. */
+  private List<List<Stop>> _stops = new ArrayList<List<Stop>>();
+
+
+
+  /** Indexes the stops of a Service.
+    * @param service (its Stations must be registered)
+    */
+  public void add(Service service) {
+    int position = 0;
+    for(Station station : service) {
+      while(_stops.size() <= station.getId())
+        _stops.add(null);
+      List<Stop> stops = _stops.get(station.getId());
+      if(stops == null) {
+        stops = new ArrayList<Stop>();
+        _stops.set(station.getId(), stops);
+      }
+      /* Services are usually added by ascending id, so this is usually the end */
+      int i = stops.size();
+      while(i > 0 && stops.get(i - 1).getService().getId() > service.getId())
+        i--;
+      stops.add(i, new Stop(service, position++, station));
+    }
+  }
+
+  /** Removes the stops of a Service from the index.
+    * @param service
+    */
+  public void remove(Service service) {
+    for(Station station : service) {
+      List<Stop> stops = _stops.get(station.getId());
+      if(stops == null)
+        continue;
+      for(int i = stops.size() - 1; i >= 0; i--)
+        if(stops.get(i).getService() == service)
+          stops.remove(i);
+      if(stops.isEmpty())
+        _stops.set(station.getId(), null);
+    }
+  }
+
+
+
+
+  /** @param station a registered Station
+    * @return true if any Service stops at station
+    */
+  public boolean hasStation(Station station) {
+    return !getStops(station).isEmpty();
+  }
+
+  /** @param station a registered Station
+    * @return the stops at station, by ascending Service id and position
+    */
+  public List<Stop> getStops(Station station) {
+    int id = station.getId();
+    List<Stop> stops = id < 0 || id >= _stops.size() ? null : _stops.get(id);
+    if(stops == null)
+      return Collections.emptyList();
+    return Collections.unmodifiableList(stops);
+  }
+
+  /** @param station a registered Station
+    * @return the Services which stop at station, by ascending id
+    */
+  public List<Service> getServices(Station station) {
+    List<Service> res = new ArrayList<Service>();
+    for(Stop stop : getStops(station))
+      if(res.isEmpty() || res.get(res.size() - 1) != stop.getService())
+        res.add(stop.getService());
+    return res;
+  }
+
+}
@@ -0,0 +1,98 @@
+package mmt;
+
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.HashMap;
+import java.time.LocalTime;
+
+
+
+/** Interns station names into dense ids (0, 1, 2, ...), so that Stations
+  * can be compared by their ids and per station data can be kept in arrays.
+  */
+
+public class StationRegistry implements Serializable {
+
+	/** The id of each name. */
+	private Map<String, Integer> _ids = new HashMap<String, Integer>();
+	/** One Station (at 00:00) for each id. */
+	private List<Station> _stations = new ArrayList<Station>();
+
+
+
+	/** @return the number of registered names */
+	public int size() {return _stations.size();}
+
+
+	/** Registers a name (if it is new).
+		* @param name
+		* @return the name's id
+		*/
+	public int register(String name) {
+		Integer id = _ids.get(name);
+		if(id == null) {
+			id = _stations.size();
+			_ids.put(name, id);
+			_stations.add(new Station(name, LocalTime.of(0, 0), id));
+		}
+		return id;
+	}
+
+	/** Gives a Station the id of its name (registering the name if it is new).
+		* @param station
+		* @return the Station's id
+		*/
+	public int register(Station station) {
+		if(station.getId() < 0)
+			station.setId(register(station.getName()));
+		return station.getId();
+	}
+
+
+	/** @param name
+		* @return the id of name, or -1 if it isn't registered
+		*/
+	public int getId(String name) {
+		Integer id = _ids.get(name);
+		return id == null ? -1 : id;
+	}
+
+	/** @param id
+		* @return the Station (at 00:00) with that id
+		*/
+	public Station getStation(int id) {
+		return _stations.get(id);
+	}
+
+	/** @param name
+		* @return the registered Station (at 00:00) with that name, or an
+		* unregistered one if there is none
+		*/
+	public Station getStation(String name) {
+		int id = getId(name);
+		return id < 0 ? new Station(name) : _stations.get(id);
+	}
+
+	/** @param name
+		* @param time
+		* @return a Station with that name and time, registered if the name is
+		*/
+	public Station getStation(String name, LocalTime time) {
+		return new Station(name, time, getId(name));
+	}
+
+	/** @param station
+		* @return station if it is registered or its name isn't; otherwise, a
+		* registered copy of it
+		*/
+	public Station intern(Station station) {
+		if(station.getId() >= 0)
+			return station;
+		int id = getId(station.getName());
+		return id < 0 ? station : new Station(station.getName(), station.getTime(), id);
+	}
+
+}
@@ -9,9 +9,9 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 
-import java.util.Collections;
 import java.util.Collection;
 import java.util.List;
+import java.util.Iterator;
 import java.util.Set;
 import java.util.Map;
 import java.util.LinkedList;
@@ -65,7 +65,7 @@ public class TicketOffice {
 		* the associated file name.
 		*/
   public void reset() {
-    _trains = new TrainCompany(_trains.getAllServices());
+    _trains = new TrainCompany(_trains.getAllServices(), _trains.getStationRegistry());
 		_associatedFilename = null;
 		_changesMade = true;
   }
@@ -185,7 +185,7 @@ NoSuchPassengerIdException | NoSuchServiceIdException e) {
 		*/
 	public List<String> getServicesArrivingAt(String stationName) throws NoSuchStationNameException {
 		List<Service> services = _trains.getSpecificServices(new SelectorByArrivingStation(),
-new Station(stationName));
+_trains.getStation(stationName));
     services.sort(Service.getServiceComparatorByArrivingStation());
 		List<String> res = new LinkedList<String>();
 		for(Service s : services)
@@ -203,7 +203,7 @@ new Station(stationName));
 		*/
 	public List<String> getServicesDepartingFrom(String stationName) throws NoSuchStationNameException{
 		List<Service> services = _trains.getSpecificServices(new SelectorByDepartingStation(),
-new Station(stationName));
+_trains.getStation(stationName));
     services.sort(Service.getServiceComparatorByDepartingStation());
 		List<String> res = new LinkedList<String>();
 		for(Service s : services)
@@ -293,7 +293,7 @@ new Station(stationName));
     List<String> res = new ArrayList<String>();
     res.add("== Passageiro " + passenger.getId() + ": " + passenger.getName() + " ==\n");
     int itineraryID = 1;
-    Collections.sort(passenger.getItineraries(), Itinerary.getItineraryComparatorByDate());
+    passenger.sortItinerariesByDate();
     for(Itinerary i : passenger.getItineraries())
       res.add("Itinerário " + itineraryID++ + " para " + i.getDate() + " @ " +
 String.format("%.2f", i.getCost()) + "\n" + i.toString());
@@ -339,12 +339,12 @@ String.format("%.2f", i.getCost()) + "\n" + i.toString());
 String departureTime) throws NoSuchPassengerIdException, BadTimeSpecificationException, BadDateSpecificationException, NoSuchStationNameException {
 
     _trains.getPassenger(passengerId); /*just checking if he exists */
-    Station arrival = new Station(arrivalStation);
+    Station arrival = _trains.getStation(arrivalStation);
     Station departure;
     LocalDate localdate;
 
     try {
-      departure = new Station(departureStation, LocalTime.parse(departureTime));
+      departure = _trains.getStation(departureStation, LocalTime.parse(departureTime));
     } catch (DateTimeParseException e) {
       throw new BadTimeSpecificationException(departureTime);
     }
@@ -355,14 +355,172 @@ String departureTime) throws NoSuchPassengerIdException, BadTimeSpecificationExc
     }
 
     _trains.search(departure, arrival, localdate);
+    return stringTemporaryItineraries();
+  }
+
+
+  /** Asks the TrainCompany for the same Itineraries as search(), but turns
+    * them into Strings only as they are asked for, so that the first ones can
+    * be shown before the others are found.
+    *
+    * @param passengerId
+    * @param departureStation
+    * @param arrivalStation
+    * @param departureDate
+    * @param departureTime the minimum time of departure
+    * @throws NoSuchPassengerIdException
+    * @throws BadTimeSpecificationException
+    * @throws BadDateSpecificationException
+    * @throws NoSuchStationNameException
+    * @return the itineraries in String format, numbered from 1
+    * @see mmt.TrainCompany#searchStream(Station,Station,LocalDate)
+    */
+  public Iterator<String> searchStream(int passengerId, String departureStation,
+String arrivalStation, String departureDate, String departureTime) throws
+NoSuchPassengerIdException, BadTimeSpecificationException, BadDateSpecificationException,
+NoSuchStationNameException {
+
+    _trains.getPassenger(passengerId); /*just checking if he exists */
+    Station arrival = _trains.getStation(arrivalStation);
+    Station departure;
+    LocalDate localdate;
+
+    try {
+      departure = _trains.getStation(departureStation, LocalTime.parse(departureTime));
+    } catch (DateTimeParseException e) {
+      throw new BadTimeSpecificationException(departureTime);
+    }
+    try {
+      localdate = LocalDate.parse(departureDate);
+    } catch (DateTimeParseException e) {
+      throw new BadDateSpecificationException(departureDate);
+    }
+
+    final Iterator<Itinerary> itineraries = _trains.searchStream(departure, arrival, localdate);
+    return new Iterator<String>() {
+      private int _itineraryID = 1;
+
+      @Override
+      public boolean hasNext() {
+        return itineraries.hasNext();
+      }
+
+      @Override
+      public String next() {
+        String s = stringItinerary(_itineraryID, itineraries.next());
+        return _itineraryID++ == 1 ? "\n" + s : s;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+
+
+  /** Asks the TrainCompany for the latest Itineraries between departureStation
+    * and arrivalStation which arrive by arrivalTime, and return the results in
+    * a list of Strings.
+    *
+    * @param passengerId
+    * @param departureStation
+    * @param arrivalStation
+    * @param departureDate
+    * @param arrivalTime the maximum time of arrival
+    * @throws NoSuchPassengerIdException
+    * @throws BadTimeSpecificationException
+    * @throws BadDateSpecificationException
+    * @throws NoSuchStationNameException
+    * @return a list of itineraries in String format
+    * @see mmt.TrainCompany#searchArriveBy(Station,Station,LocalDate)
+    */
+  public List<String> searchArriveBy(int passengerId, String departureStation,
+String arrivalStation, String departureDate, String arrivalTime) throws
+NoSuchPassengerIdException, BadTimeSpecificationException, BadDateSpecificationException,
+NoSuchStationNameException {
+
+    _trains.getPassenger(passengerId); /*just checking if he exists */
+    Station departure = _trains.getStation(departureStation);
+    Station arrival;
+    LocalDate localdate;
+
+    try {
+      arrival = _trains.getStation(arrivalStation, LocalTime.parse(arrivalTime));
+    } catch (DateTimeParseException e) {
+      throw new BadTimeSpecificationException(arrivalTime);
+    }
+    try {
+      localdate = LocalDate.parse(departureDate);
+    } catch (DateTimeParseException e) {
+      throw new BadDateSpecificationException(departureDate);
+    }
+
+    _trains.searchArriveBy(departure, arrival, localdate);
+    return stringTemporaryItineraries();
+  }
+
+
+  /** Asks the TrainCompany for every Itinerary between departureStation and
+    * arrivalStation leaving in a window of time which is not dominated by
+    * another one, and return the results in a list of Strings.
+    *
+    * @param passengerId
+    * @param departureStation
+    * @param arrivalStation
+    * @param departureDate
+    * @param earliestTime the minimum time of departure
+    * @param latestTime the maximum time of departure
+    * @throws NoSuchPassengerIdException
+    * @throws BadTimeSpecificationException
+    * @throws BadDateSpecificationException
+    * @throws NoSuchStationNameException
+    * @return a list of itineraries in String format
+    * @see mmt.TrainCompany#searchProfile(Station,LocalTime,Station,LocalDate)
+    */
+  public List<String> searchProfile(int passengerId, String departureStation,
+String arrivalStation, String departureDate, String earliestTime, String latestTime)
+throws NoSuchPassengerIdException, BadTimeSpecificationException,
+BadDateSpecificationException, NoSuchStationNameException {
 
+    _trains.getPassenger(passengerId); /*just checking if he exists */
+    Station arrival = _trains.getStation(arrivalStation);
+    Station departure;
+    LocalTime latest;
+    LocalDate localdate;
+
+    try {
+      departure = _trains.getStation(departureStation, LocalTime.parse(earliestTime));
+    } catch (DateTimeParseException e) {
+      throw new BadTimeSpecificationException(earliestTime);
+    }
+    try {
+      latest = LocalTime.parse(latestTime);
+    } catch (DateTimeParseException e) {
+      throw new BadTimeSpecificationException(latestTime);
+    }
+    try {
+      localdate = LocalDate.parse(departureDate);
+    } catch (DateTimeParseException e) {
+      throw new BadDateSpecificationException(departureDate);
+    }
+
+    _trains.searchProfile(departure, latest, arrival, localdate);
+    return stringTemporaryItineraries();
+  }
+
+
+  /** @return the String representation of the TrainCompany's temporary
+    * Itineraries (numbered from 1)
+    */
+  private List<String> stringTemporaryItineraries() {
     List<Itinerary> itineraries = _trains.getTemporaryItineraries();
     List<String> res = new ArrayList<String>();
 
     int itineraryID = 1;
     for(Itinerary i : itineraries)
-      res.add("Itinerário " + itineraryID++ + " para " + i.getDate() + " @ " +
-String.format("%.2f", i.getCost()) + "\n" + i.toString());
+      res.add(stringItinerary(itineraryID++, i));
 
     if(itineraryID > 1)
       res.set(0, "\n" + res.get(0));
@@ -372,6 +530,13 @@ String.format("%.2f", i.getCost()) + "\n" + i.toString());
   }
 
 
+  /** @return the String representation of a temporary Itinerary */
+  private static String stringItinerary(int itineraryID, Itinerary itinerary) {
+    return "Itinerário " + itineraryID + " para " + itinerary.getDate() + " @ " +
+String.format("%.2f", itinerary.getCost()) + "\n" + itinerary.toString();
+  }
+
+
   /** @see mmt.TrainCompany#commitItinerary(int,int) */
   public void commitItinerary(int passengerId, int itineraryNumber) throws NoSuchPassengerIdException,
 NoSuchItineraryChoiceException {
@@ -13,13 +13,22 @@ import mmt.exceptions.NonUniquePassengerNameException;
 
 import mmt.serviceselectors.ServiceSelector;
 
+import mmt.searchengines.SearchEngine;
+import mmt.searchengines.StreamingSearchEngine;
+import mmt.searchengines.ConnectionScan;
+import mmt.searchengines.ConnectionTable;
+import mmt.searchengines.ProfileScan;
+import mmt.searchengines.ItineraryEnumeration;
+import mmt.searchengines.ReverseConnectionScan;
+import mmt.searchengines.IsochroneScan;
+import mmt.searchengines.TravelTimeMatrix;
+
 
 
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Set;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.HashMap;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -45,21 +54,41 @@ public class TrainCompany implements Serializable {
   private static final long serialVersionUID = 201708301010L;
 
 
-	/** This TrainCompany's list of Services. */
-	private Map<Integer, Service> _services;
+	/** This TrainCompany's list of Services, by id. */
+	private IdRegistry<Service> _services;
 
 
 
-	/** This TrainCompany's list of Passengers. */
-	private Map<Integer, Passenger> _passengers = new TreeMap<Integer, Passenger>();
+	/** This TrainCompany's list of Passengers, by id. */
+	private IdRegistry<Passenger> _passengers = new IdRegistry<Passenger>();
 	/** Total number of Passengers. */
 	private int _passengersNumber = 0;
 
 
 
+	/** The ids of the station names of this TrainCompany's Services. */
+	private StationRegistry _stationRegistry;
+
+
+
 	/** This TrainCompany's list of temporary Itineraries. */
 	transient private List<Itinerary> _temporaryItineraries = new ArrayList<Itinerary>();
 
+	/** The algorithm used to search for Itineraries. */
+	transient private SearchEngine _searchEngine;
+
+	/** The results of the last searches. */
+	transient private SearchCache _searchCache;
+
+	/** The Services flattened into connections, used by the search algorithms. */
+	transient private ConnectionTable _connectionTable;
+
+	/** The stops of the Services at each station. */
+	transient private StationIndex _stationIndex;
+
+	/** The id of each Passenger, by name. */
+	transient private Map<String, Integer> _passengerIds;
+
 
 
 
@@ -68,14 +97,17 @@ public class TrainCompany implements Serializable {
 
   /** Constructor for class TrainCompany.
     * @param services
+    * @param stationRegistry the registry of the Services' stations
     */
-  public TrainCompany(Map<Integer, Service> services) {
-    _services = services;
+  public TrainCompany(Map<Integer, Service> services, StationRegistry stationRegistry) {
+    _services = new IdRegistry<Service>(services);
+    _stationRegistry = stationRegistry;
   }
 
   /** Default Constructor for class TrainCompany. */
   public TrainCompany() {
-    _services = new TreeMap<Integer, Service>();
+    _services = new IdRegistry<Service>();
+    _stationRegistry = new StationRegistry();
   }
 
 
@@ -176,30 +208,36 @@ NonUniquePassengerNameException, NoSuchPassengerIdException, NoSuchServiceIdExce
     * @param fields
     * @throws NoSuchPassengerIdException
     * @throws NoSuchServiceIdException
+    * @throws BadEntryException if a Service doesn't go between the Stations
+    * of its segment
     */
   public void registerItinerary(String[] fields) throws NoSuchPassengerIdException,
-NoSuchServiceIdException {
+NoSuchServiceIdException, BadEntryException {
     Passenger passenger = getPassenger(Integer.parseInt(fields[1]));
-    Itinerary itinerary = new Itinerary(LocalDate.parse(fields[2]));
+    List<ServiceSegment> segments = new ArrayList<ServiceSegment>();
     Service service;
     Station first, last;
     String[] pseudoSegment;
     for(int i = 3; i < fields.length; i++) {
       pseudoSegment = fields[i].split("/");
       service = getService(Integer.parseInt(pseudoSegment[0]));
-      first = new Station(pseudoSegment[1]);
-      last = new Station(pseudoSegment[2]);
-      for(Station station : service) {
-        if(station.equals(first))
-          first = station;
-        else if(station.equals(last)) {
-          last = station;
+      first = getStation(pseudoSegment[1]);
+      last = getStation(pseudoSegment[2]);
+      /* the segment leaves at the first stop at last, boarding at the last
+      stop at first before it */
+      int firstStop = -1, lastStop;
+      for(lastStop = 0; lastStop < service.getStopNumber(); lastStop++) {
+        int id = service.getStationId(lastStop);
+        if(id == first.getId())
+          firstStop = lastStop;
+        else if(id == last.getId())
           break;
-        }
       }
-      itinerary.addServiceSegment(new ServiceSegment(service, first, last));
+      if(firstStop < 0 || lastStop == service.getStopNumber())
+        throw new BadEntryException(fields[i]);
+      segments.add(new ServiceSegment(service, firstStop, lastStop));
     }
-    passenger.addItinerary(itinerary);
+    passenger.addItinerary(new Itinerary(LocalDate.parse(fields[2]), segments));
   }
 
 
@@ -218,7 +256,14 @@ NoSuchServiceIdException {
 		* @param service
     */
 	public void addService(Service service) {
-		_services.put(service.getId(), service);
+		service.register(getStationRegistry());
+		StationIndex index = getStationIndex();
+		Service previous = _services.put(service.getId(), service);
+		if(previous != null)
+			index.remove(previous);
+		index.add(service);
+		_connectionTable = null;
+		getSearchCache().clear();
 	}
 
 
@@ -227,10 +272,10 @@ NoSuchServiceIdException {
     * @throws NoSuchServiceIdException
     */
 	public Service getService(int id) throws NoSuchServiceIdException{
-		if(_services.containsKey(id))
-		  return _services.get(id);
-    else
+		Service service = _services.get(id);
+		if(service == null)
       throw new NoSuchServiceIdException(id);
+		return service;
 	}
 
 
@@ -250,22 +295,60 @@ NoSuchServiceIdException {
 	public List<Service> getSpecificServices(ServiceSelector ss, Station station)
 throws NoSuchStationNameException {
 		ArrayList<Service> res = new ArrayList<Service>();
-		Collection<Service> collection = getAllServices().values();
-		boolean noSuchStation = true;
-		for(Service s : collection) {
-			if(ss.isValid(s, station)) {
-				res.add(s);
-				noSuchStation = false;
-			}
-			else if(s.hasStation(station))
-				noSuchStation = false;
-		}
-		if(noSuchStation)
+		List<Service> candidates = getStationIndex().getServices(getStationRegistry().intern(station));
+		if(candidates.isEmpty())
 			throw new NoSuchStationNameException(station.getName());
+		for(Service s : candidates)
+			if(ss.isValid(s, station))
+				res.add(s);
 		return res;
 	}
 
 
+	/** @return the registry of the station names of this TrainCompany's
+		* Services (built from them if none was given to the constructor)
+		*/
+	public StationRegistry getStationRegistry() {
+		if(_stationRegistry == null) {
+			_stationRegistry = new StationRegistry();
+			for(Service s : _services.values())
+				s.register(_stationRegistry);
+		}
+		return _stationRegistry;
+	}
+
+
+	/** @param name
+		* @return the registered Station (at 00:00) with that name (an
+		* unregistered one, if no Service stops there)
+		*/
+	public Station getStation(String name) {
+		return getStationRegistry().getStation(name);
+	}
+
+	/** @param name
+		* @param time
+		* @return a Station with that name and time (registered, if some Service
+		* stops there)
+		*/
+	public Station getStation(String name, LocalTime time) {
+		return getStationRegistry().getStation(name, time);
+	}
+
+
+	/** @return the index of the stops of this TrainCompany's Services at each
+		* station (it is rebuilt when first needed after loading)
+		*/
+	public StationIndex getStationIndex() {
+		if(_stationIndex == null) {
+			_stationIndex = new StationIndex();
+			for(Service s : _services.values())
+				_stationIndex.add(s);
+		}
+		return _stationIndex;
+	}
+
+
 
 
 
@@ -285,13 +368,13 @@ throws NoSuchStationNameException {
     */
 	public void changePassengerName(int id, String name) throws
 NoSuchPassengerIdException, NonUniquePassengerNameException {
-		if(!_passengers.containsKey(id))
-			throw new NoSuchPassengerIdException(id);
-    Set<Integer> passengerIDs = _passengers.keySet();
-		for(Integer i : passengerIDs)
-			if(_passengers.get(i).getName().equals(name))
-				throw new NonUniquePassengerNameException(name);
-		_passengers.get(id).setName(name);
+		Passenger passenger = getPassenger(id);
+		Map<String, Integer> passengerIds = getPassengerIds();
+		if(passengerIds.containsKey(name))
+			throw new NonUniquePassengerNameException(name);
+		passengerIds.remove(passenger.getName());
+		passenger.setName(name);
+		passengerIds.put(name, id);
 	}
 
 
@@ -300,9 +383,10 @@ NoSuchPassengerIdException, NonUniquePassengerNameException {
     * @throws NoSuchPassengerIdException
     */
 	public Passenger getPassenger(int id) throws NoSuchPassengerIdException {
-    if(!_passengers.containsKey(id))
+		Passenger passenger = _passengers.get(id);
+		if(passenger == null)
 			throw new NoSuchPassengerIdException(id);
-		return _passengers.get(id);
+		return passenger;
 	}
 
 	/** @return this TrainCompany's Passengers */
@@ -317,15 +401,28 @@ NoSuchPassengerIdException, NonUniquePassengerNameException {
     * with that name
     */
 	public void registerPassenger(String name) throws NonUniquePassengerNameException {
-    Set<Integer> passengerIDs = _passengers.keySet();
-    for(Integer i : passengerIDs)
-			if(_passengers.get(i).getName().equals(name))
-				throw new NonUniquePassengerNameException(name);
-		_passengers.put(_passengersNumber, new Passenger(name, _passengersNumber));
+		Map<String, Integer> passengerIds = getPassengerIds();
+		if(passengerIds.containsKey(name))
+			throw new NonUniquePassengerNameException(name);
+		_passengers.put(_passengersNumber, new Passenger(name, _passengersNumber, _services));
+		passengerIds.put(name, _passengersNumber);
     _passengersNumber++;
 	}
 
 
+	/** @return the id of each Passenger, by name (it is rebuilt when first
+		* needed after loading)
+		*/
+	private Map<String, Integer> getPassengerIds() {
+		if(_passengerIds == null) {
+			_passengerIds = new HashMap<String, Integer>();
+			for(Passenger passenger : _passengers.values())
+				_passengerIds.put(passenger.getName(), passenger.getId());
+		}
+		return _passengerIds;
+	}
+
+
 
 
 
@@ -343,143 +440,290 @@ NoSuchPassengerIdException, NonUniquePassengerNameException {
       * If there are more than 1 candidate for the same starting service, only
       * the 1. more direct 2. fastest, will be chosen.
       * The itineraries are then saved in a local attribute (_temporaryItineraries)
+      * Repeated searches are answered by the SearchCache.
       * @param departure
       * @param arrival
       * @param localdate the Itineraries' date
       * @throws NoSuchStationNameException if either departure or arrival don't exist
+      * @see mmt.TrainCompany#setSearchEngine(SearchEngine)
+      * @see mmt.TrainCompany#getSearchCache()
       */
   public void search(Station departure, Station arrival, LocalDate localdate) throws NoSuchStationNameException {
 
-    /* initializes _temporaryItineraries */
-    _temporaryItineraries = new ArrayList<Itinerary>();
+    departure = getStationRegistry().intern(departure);
+    arrival = getStationRegistry().intern(arrival);
+    SearchCache cache = getSearchCache();
+    List<Itinerary> itineraries = cache.get(departure, arrival, localdate);
+    if(itineraries == null) {
+      Station start = getStation(departure.getName(), cache.getBucketStart(departure));
+      itineraries = new ArrayList<Itinerary>(getSearchEngine().search(this,
+start, arrival, localdate));
+      Collections.sort(itineraries);
+      itineraries = cache.put(departure, arrival, localdate, itineraries);
+    }
+    _temporaryItineraries = itineraries;
 
-    Itinerary result;
-    Set<Integer> serviceIDs = _services.keySet(); //to iterate over the Services of this TrainCompany
-    Service service;
+    if(_temporaryItineraries.size() == 0)
+      checkStations(departure, arrival);
+  }
+
+
+    /** Searches for the same Itineraries as search(), but gives them one at a
+      * time, in their natural order, so that the first ones can be used before
+      * the others are built (if the SearchEngine is a StreamingSearchEngine).
+      * Each Itinerary given is appended to the temporary Itineraries, so that
+      * it can be committed.
+      * @param departure
+      * @param arrival
+      * @param localdate the Itineraries' date
+      * @return the Itineraries, by their natural order
+      * @throws NoSuchStationNameException if either departure or arrival don't exist
+      * @see mmt.searchengines.StreamingSearchEngine
+      */
+  public Iterator<Itinerary> searchStream(Station departure, Station arrival,
+LocalDate localdate) throws NoSuchStationNameException {
+
+    departure = getStationRegistry().intern(departure);
+    arrival = getStationRegistry().intern(arrival);
+    checkStations(departure, arrival);
+
+    final Iterator<Itinerary> itineraries;
+    List<Itinerary> cached = getSearchCache().get(departure, arrival, localdate);
+    if(cached != null)
+      itineraries = cached.iterator();
+    else if(getSearchEngine() instanceof StreamingSearchEngine)
+      itineraries = ((StreamingSearchEngine) getSearchEngine()).stream(this,
+departure, arrival, localdate);
+    else {
+      List<Itinerary> found = new ArrayList<Itinerary>(getSearchEngine().search(this,
+departure, arrival, localdate));
+      Collections.sort(found);
+      itineraries = found.iterator();
+    }
 
-    /* to determime if departure or arrival are non existent */
-    boolean hasArrival, hasDeparture;
-    hasArrival = hasDeparture = false;
+    final List<Itinerary> given = new ArrayList<Itinerary>();
+    _temporaryItineraries = given;
+    return new Iterator<Itinerary>() {
+      @Override
+      public boolean hasNext() {
+        return itineraries.hasNext();
+      }
 
-    /* to garantee that a itinerary will only go through the same service once */
-    Map<Integer, Boolean> usedServices = new TreeMap<Integer, Boolean>();
+      @Override
+      public Itinerary next() {
+        Itinerary itinerary = itineraries.next();
+        given.add(itinerary);
+        return itinerary;
+      }
 
-    for(int i : serviceIDs)
-      usedServices.put(i, false);
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
 
-    for (int i : serviceIDs) {
-      service = _services.get(i);
-      for(Station station : service)
-        if(departure.equals(station)) {
-          hasDeparture = true;
-          if(departure.getTimeInBetween(station).toMinutes() >= 0) {
 
-            usedServices.put(i, true);
-            result = search(new ArrayList<ServiceSegment>(), service, usedServices,
-station, arrival, localdate, serviceIDs);
-            usedServices.put(i, false);
+    /** Searches for every Itinerary from departure to arrival, leaving between
+      * the departure's time and latest, which is not dominated by another one
+      * (leaving no earlier and arriving no later); the whole window takes one
+      * scan of the Services.
+      * The itineraries are then saved in a local attribute (_temporaryItineraries)
+      * @param departure
+      * @param latest the latest departure time
+      * @param arrival
+      * @param localdate the Itineraries' date
+      * @throws NoSuchStationNameException if either departure or arrival don't exist
+      * @see mmt.searchengines.ProfileScan
+      */
+  public void searchProfile(Station departure, LocalTime latest, Station arrival,
+LocalDate localdate) throws NoSuchStationNameException {
 
-            if(result != null)
-              _temporaryItineraries.add(result);
-          }
-        }
-    }
+    departure = getStationRegistry().intern(departure);
+    arrival = getStationRegistry().intern(arrival);
+    _temporaryItineraries = new ArrayList<Itinerary>(new ProfileScan().search(this,
+departure, latest, arrival, localdate));
 
-    if(_temporaryItineraries.size() == 0) {
-      for(Service s : getAllServices().values())
-        if(s.hasStation(arrival))
-          hasArrival = true;
-      if(hasArrival == false)
-        throw new NoSuchStationNameException(arrival.getName());
-    }
+    if(_temporaryItineraries.size() == 0)
+      checkStations(departure, arrival);
     else
       Collections.sort(_temporaryItineraries);
-    if(hasDeparture == false)
+  }
+
+
+    /** Searches for the latest itineraries from departure which reach arrival
+      * on time: for each Service leaving departure, the Itinerary of its latest
+      * possible boarding.
+      * The itineraries are then saved in a local attribute (_temporaryItineraries)
+      * @param departure
+      * @param arrival the arrival Station, at the latest arrival time
+      * @param localdate the Itineraries' date
+      * @throws NoSuchStationNameException if either departure or arrival don't exist
+      * @see mmt.searchengines.ReverseConnectionScan
+      */
+  public void searchArriveBy(Station departure, Station arrival, LocalDate localdate)
+throws NoSuchStationNameException {
+
+    departure = getStationRegistry().intern(departure);
+    arrival = getStationRegistry().intern(arrival);
+    _temporaryItineraries = new ArrayList<Itinerary>(new ReverseConnectionScan().search(
+this, departure, arrival, localdate));
+
+    if(_temporaryItineraries.size() == 0)
+      checkStations(departure, arrival);
+    else
+      Collections.sort(_temporaryItineraries);
+  }
+
+
+    /** Searches for the earliest arrival at every station which can be reached
+      * from departure within some minutes, with one scan of the Services.
+      * @param departure the departure Station, at the departure time
+      * @param minutes the time budget
+      * @param localdate the Itineraries' date
+      * @return the Stations reached (each one at its earliest arrival time) and
+      * an Itinerary which arrives there then, by ascending arrival
+      * @throws NoSuchStationNameException if departure doesn't exist
+      * @see mmt.searchengines.IsochroneScan
+      */
+  public Map<Station, Itinerary> searchIsochrone(Station departure, int minutes,
+LocalDate localdate) throws NoSuchStationNameException {
+    departure = getStationRegistry().intern(departure);
+    if(!hasStation(departure))
+      throw new NoSuchStationNameException(departure.getName());
+    return new IsochroneScan().search(this, departure, minutes, localdate);
+  }
+
+
+    /** Fills the matrices of the earliest arrivals, leaving at departure,
+      * from each origin to each destination: minutes[i][j] gets the minutes
+      * from origins[i] to destinations[j] (waiting included) and fares[i][j]
+      * the cost of an Itinerary which arrives then, or
+      * TravelTimeMatrix.UNREACHABLE. The origins are scanned in parallel.
+      * @param origins
+      * @param destinations
+      * @param departure the departure time
+      * @param minutes an origins.size() by destinations.size() matrix
+      * @param fares an origins.size() by destinations.size() matrix (or null,
+      * if the fares aren't needed)
+      * @throws NoSuchStationNameException if any of the Stations doesn't exist
+      * @see mmt.searchengines.TravelTimeMatrix
+      */
+  public void computeTravelTimes(List<Station> origins, List<Station> destinations,
+LocalTime departure, int[][] minutes, double[][] fares) throws NoSuchStationNameException {
+    List<Station> from = new ArrayList<Station>(origins.size());
+    List<Station> to = new ArrayList<Station>(destinations.size());
+    for(Station station : origins)
+      from.add(getStationRegistry().intern(station));
+    for(Station station : destinations)
+      to.add(getStationRegistry().intern(station));
+    for(Station station : from)
+      if(!hasStation(station))
+        throw new NoSuchStationNameException(station.getName());
+    for(Station station : to)
+      if(!hasStation(station))
+        throw new NoSuchStationNameException(station.getName());
+    new TravelTimeMatrix(this).compute(from, to, departure, minutes, fares);
+  }
+
+
+    /** Searches for the k first Itineraries from departure to arrival, by
+      * their natural order, no two of them using the same sequence of Services.
+      * The itineraries are then saved in a local attribute (_temporaryItineraries)
+      * @param departure
+      * @param arrival
+      * @param localdate the Itineraries' date
+      * @param k the maximum number of Itineraries
+      * @throws NoSuchStationNameException if either departure or arrival don't exist
+      * @see mmt.TrainCompany#enumerate(Station,Station,LocalDate,boolean)
+      */
+  public void searchBest(Station departure, Station arrival, LocalDate localdate,
+int k) throws NoSuchStationNameException {
+
+    _temporaryItineraries = new ArrayList<Itinerary>();
+    Iterator<Itinerary> itineraries = enumerate(departure, arrival, localdate, true);
+    while(_temporaryItineraries.size() < k && itineraries.hasNext())
+      _temporaryItineraries.add(itineraries.next());
+
+    if(_temporaryItineraries.size() == 0)
+      checkStations(getStationRegistry().intern(departure), getStationRegistry().intern(arrival));
+  }
+
+
+  /** @param departure the departure Station, at the earliest departure time
+    * @param arrival
+    * @param localdate the Itineraries' date
+    * @param diverse whether Itineraries with the same sequence of Services as
+    * an earlier one are skipped
+    * @return the Itineraries from departure to arrival, by their natural
+    * order, each one found only when it is asked for
+    * @see mmt.searchengines.ItineraryEnumeration
+    */
+  public Iterator<Itinerary> enumerate(Station departure, Station arrival,
+LocalDate localdate, boolean diverse) {
+    return new ItineraryEnumeration(this, getStationRegistry().intern(departure),
+getStationRegistry().intern(arrival), localdate, diverse);
+  }
+
+
+  /** @throws NoSuchStationNameException if either departure or arrival don't exist */
+  private void checkStations(Station departure, Station arrival) throws
+NoSuchStationNameException {
+    if(!hasStation(arrival))
+      throw new NoSuchStationNameException(arrival.getName());
+    if(!hasStation(departure))
       throw new NoSuchStationNameException(departure.getName());
   }
 
 
+  /** @param station
+    * @return true if any Service stops at station
+    */
+  public boolean hasStation(Station station) {
+    return getStationIndex().hasStation(getStationRegistry().intern(station));
+  }
 
 
 
 
+  /** @return the SearchEngine used by search() (a ConnectionScan by default) */
+  public SearchEngine getSearchEngine() {
+    if(_searchEngine == null)
+      _searchEngine = new ConnectionScan();
+    return _searchEngine;
+  }
+
+  /** Sets the SearchEngine used by search().
+    * @param searchEngine
+    */
+  public void setSearchEngine(SearchEngine searchEngine) {
+    _searchEngine = searchEngine;
+    getSearchCache().clear();
+  }
 
 
+  /** @return the cache of the results of search() */
+  public SearchCache getSearchCache() {
+    if(_searchCache == null)
+      _searchCache = new SearchCache();
+    return _searchCache;
+  }
 
-  /** Recursion based function; does most of the work for the other search()
-    * @param ss the list of service segments built untill now
-    * @param service starting Service
-    * @param usedServices map representing the used Services
-    * @param first the starting point in service
-    * @param last the Station we want to get to
-    * @param localdate the date of the Itinerary
-    * @param serviceIDs
-    * @return an Itinerary or null if none were found
+  /** Sets the cache of the results of search().
+    * @param searchCache
     */
-  private Itinerary search(List<ServiceSegment> ss, Service service,
-Map<Integer, Boolean> usedServices, Station first, Station last,
-LocalDate localdate, Set<Integer> serviceIDs) {
-
-    List<Itinerary> obtained = new ArrayList<Itinerary>();
-
-    Itinerary itinerary;
-    Station departure;
-    int minimum = Integer.MAX_VALUE;
-
-    /* stop condition: if it's successful, a new Itinerary is created and returned */
-    if(service.hasStation(last)) {
-      for(Station station : service)
-        if(station.equals(last) && first.getTimeInBetween(station).toMinutes() >= 0) {
-          ss.add(new ServiceSegment(service, first, station));
-          itinerary = new Itinerary(localdate);
-          for(ServiceSegment s : ss)
-            itinerary.addServiceSegment(s);
-          ss.remove(ss.size() - 1);
-          return itinerary;
-        }
-    }
+  public void setSearchCache(SearchCache searchCache) {
+    _searchCache = searchCache;
+  }
 
-    /* otherwise, it will search for the last Station in other Services (by calling this function again) */
-    else {
-      for(Station station : service)
-        for(int i : serviceIDs)
-          if(!usedServices.get(i)) {
-            Service nextService = _services.get(i);
-            if(nextService.hasStation(station) && !station.equals(service.getDepartingStation()))
-              for(Station nextStation : nextService)
-                if(nextStation.equals(station) && station.getTimeInBetween(nextStation).toMinutes() >= 0) {
-
-                  ss.add(new ServiceSegment(service, first, station));
-                  usedServices.put(i, true);
-                  itinerary = search(ss, nextService, usedServices, nextStation,
-  last, localdate, serviceIDs);
-                  ss.remove(ss.size() - 1);
-                  usedServices.put(i, false);
-
-                  /* if there is no possible itinerary, null will be returned */
-                  if(itinerary != null) {
-                    /* the itineraries must have a minimal number of Segments
-                    (they must be as direct as possible) */
-                    if(minimum > itinerary.getSegmentNumber()) {
-                      minimum = itinerary.getSegmentNumber();
-                      obtained = new ArrayList<Itinerary>();
-                    }
-                    else if(minimum < itinerary.getSegmentNumber())
-                      break;
-                    obtained.add(itinerary);
-                  }
-                  break;
-                }
-          }
-    }
 
-    /** from the list of itineraries obtained, the smallest is chosen (smallest by the natural order)
-      * @see mmt.Itinerary#compareTo(Itinerary)
-      */
-    if(obtained.size() > 0)
-      return Collections.min(obtained);
-    else
-      return null;
+  /** @return the ConnectionTable of this TrainCompany's Services (it is
+    * built when first needed after the Services change)
+    */
+  public ConnectionTable getConnectionTable() {
+    if(_connectionTable == null)
+      _connectionTable = new ConnectionTable(_services.values(), getStationRegistry().size());
+    return _connectionTable;
   }
 
 
@@ -0,0 +1,290 @@
+package mmt.searchengines;
+
+
+import mmt.Itinerary;
+import mmt.ServiceSegment;
+import mmt.Station;
+import mmt.TrainCompany;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+
+/** SearchEngine based on the Connection Scan Algorithm.
+  * The connections of the TrainCompany's ConnectionTable are scanned once,
+  * from the latest to the earliest departure, computing for each connection
+  * the 1. more direct 2. fastest way of reaching the arrival Station after
+  * taking it. Each Service leaving the departure Station then gets its best
+  * Itinerary just like with the DepthFirstSearch, but in linear time.
+  */
+
+public class ConnectionScan implements StreamingSearchEngine {
+
+  /** Value used for unreachable connections. */
+  static final int INFINITY = Integer.MAX_VALUE;
+
+  /** Value of next for connections which arrive at the destination. */
+  static final int ARRIVED = -1;
+
+
+
+  /** Best ways of leaving a station, as a list of (departure time, number of
+    * segments, arrival time, connection), by descending departure time, in
+    * which each entry is strictly better than the previous ones.
+    */
+  static class Profile {
+    int[] _time = new int[4];
+    int[] _legs = new int[4];
+    int[] _arrival = new int[4];
+    int[] _connection = new int[4];
+    int _size = 0;
+
+    /** Appends an entry (it must depart earlier than every other entry). */
+    void add(int time, int legs, int arrival, int connection) {
+      if(_size == _time.length) {
+        _time = Arrays.copyOf(_time, _size * 2);
+        _legs = Arrays.copyOf(_legs, _size * 2);
+        _arrival = Arrays.copyOf(_arrival, _size * 2);
+        _connection = Arrays.copyOf(_connection, _size * 2);
+      }
+      _time[_size] = time;
+      _legs[_size] = legs;
+      _arrival[_size] = arrival;
+      _connection[_size] = connection;
+      _size++;
+    }
+
+    /** @return the index of the best entry departing at or after time, or -1 */
+    int best(int time) {
+      int low = 0, high = _size;
+      while(low < high) {
+        int middle = (low + high) >>> 1;
+        if(_time[middle] >= time)
+          low = middle + 1;
+        else
+          high = middle;
+      }
+      return low - 1;
+    }
+  }
+
+
+
+  /** The result of a scan: the best way of reaching the arrival Station
+    * after taking each connection, and the connections which leave the
+    * departure Station.
+    */
+  private static class Scan {
+    /** The scanned ConnectionTable. */
+    ConnectionTable _table;
+    /** The first connection scanned. */
+    int _offset;
+    /** The connection taken after each connection (indexed from _offset). */
+    int[] _next;
+    /** The arrival after taking each connection (indexed from _offset). */
+    int[] _arrival;
+    /** The connections leaving the departure Station which reach the arrival
+    Station, in the order of the Services (which is the order the
+    DepthFirstSearch uses). */
+    int[] _boardings = new int[0];
+  }
+
+
+
+  /** @see mmt.searchengines.SearchEngine#search(TrainCompany,Station,Station,LocalDate) */
+  @Override
+  public List<Itinerary> search(TrainCompany trains, Station departure,
+Station arrival, LocalDate date) {
+
+    List<Itinerary> res = new ArrayList<Itinerary>();
+    Scan scan = scan(trains, departure, arrival);
+    for(int c : scan._boardings)
+      res.add(buildItinerary(scan._table, c, scan._next, scan._offset, date));
+    return res;
+  }
+
+
+  /** The scan is the same as search()'s; only the Itineraries are built
+    * lazily, after sorting the boardings by (departure, arrival, order of
+    * the Services) as packed longs.
+    * @see mmt.searchengines.StreamingSearchEngine#stream(TrainCompany,Station,Station,LocalDate)
+    */
+  @Override
+  public Iterator<Itinerary> stream(TrainCompany trains, Station departure,
+Station arrival, final LocalDate date) {
+
+    final Scan scan = scan(trains, departure, arrival);
+    final long[] keys = new long[scan._boardings.length];
+    for(int i = 0; i < keys.length; i++) {
+      int c = scan._boardings[i];
+      keys[i] = (long) scan._table.getDepartureTime(c) << 44 |
+(long) scan._arrival[c - scan._offset] << 32 | i;
+    }
+    Arrays.sort(keys);
+
+    return new Iterator<Itinerary>() {
+      private int _position = 0;
+
+      @Override
+      public boolean hasNext() {
+        return _position < keys.length;
+      }
+
+      @Override
+      public Itinerary next() {
+        if(!hasNext())
+          throw new NoSuchElementException();
+        int c = scan._boardings[(int) keys[_position++]];
+        return buildItinerary(scan._table, c, scan._next, scan._offset, date);
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+
+  /** Scans the connections once, from the latest to the earliest departure.
+    * @return the Scan
+    */
+  private Scan scan(TrainCompany trains, Station departure, Station arrival) {
+
+    Scan res = new Scan();
+    ConnectionTable table = trains.getConnectionTable();
+    res._table = table;
+    int from = table.getStationId(departure);
+    int to = table.getStationId(arrival);
+    if(from < 0 || to < 0)
+      return res;
+
+    int time = departure.getMinutes();
+    int offset = table.firstDepartingAfter(time);
+    int size = table.size() - offset;
+
+    /* segments of the best way to reach the destination after taking each
+    connection, its arrival and the connection taken next (indexed from
+    offset) */
+    int[] legs = new int[size];
+    int[] arrivals = new int[size];
+    int[] next = new int[size];
+
+    /* the same, but for staying on each trip */
+    int[] tripLegs = new int[table.getTripNumber()];
+    int[] tripArrival = new int[table.getTripNumber()];
+    int[] tripNext = new int[table.getTripNumber()];
+    Arrays.fill(tripLegs, INFINITY);
+
+    Profile[] profiles = new Profile[table.getStationNumber()];
+
+    for(int c = table.size() - 1; c >= offset; c--) {
+      int trip = table.getTrip(c);
+      int station = table.getArrivingStation(c);
+      int bestLegs = INFINITY, bestArrival = INFINITY, bestNext = ARRIVED;
+
+      /* the most direct way is getting off here */
+      if(station == to) {
+        bestLegs = 1;
+        bestArrival = table.getArrivalTime(c);
+      }
+      else {
+        /* staying on the same Service */
+        if(tripLegs[trip] != INFINITY) {
+          bestLegs = tripLegs[trip];
+          bestArrival = tripArrival[trip];
+          bestNext = tripNext[trip];
+        }
+        /* or changing to another one */
+        Profile profile = profiles[station];
+        int entry = profile == null ? -1 : profile.best(table.getArrivalTime(c));
+        if(entry >= 0 && isBetter(profile._legs[entry] + 1, profile._arrival[entry],
+bestLegs, bestArrival)) {
+          bestLegs = profile._legs[entry] + 1;
+          bestArrival = profile._arrival[entry];
+          bestNext = profile._connection[entry];
+        }
+      }
+
+      legs[c - offset] = bestLegs;
+      arrivals[c - offset] = bestArrival;
+      next[c - offset] = bestNext;
+      if(bestLegs == INFINITY)
+        continue;
+
+      tripLegs[trip] = bestLegs;
+      tripArrival[trip] = bestArrival;
+      tripNext[trip] = c;
+
+      /* boarding here is only useful if it beats every later departure */
+      station = table.getDepartingStation(c);
+      Profile profile = profiles[station];
+      if(profile == null)
+        profile = profiles[station] = new Profile();
+      if(profile._size == 0 || isBetter(bestLegs, bestArrival,
+profile._legs[profile._size - 1], profile._arrival[profile._size - 1]))
+        profile.add(table.getDepartureTime(c), bestLegs, bestArrival, c);
+    }
+
+    /* the boardings at the departure Station, in the order of the Services */
+    List<Integer> boardings = new ArrayList<Integer>();
+    for(int c : table.getDepartures(from))
+      if(c >= offset && legs[c - offset] != INFINITY)
+        boardings.add(c);
+    boardings.sort(new Comparator<Integer>() {
+      @Override
+      public int compare(Integer c1, Integer c2) {
+        if(table.getTrip(c1) != table.getTrip(c2))
+          return Integer.compare(table.getTrip(c1), table.getTrip(c2));
+        return Integer.compare(table.getStop(c1), table.getStop(c2));
+      }
+    });
+
+    res._offset = offset;
+    res._next = next;
+    res._arrival = arrivals;
+    res._boardings = new int[boardings.size()];
+    for(int i = 0; i < res._boardings.length; i++)
+      res._boardings[i] = boardings.get(i);
+    return res;
+  }
+
+
+
+  /** @return true if (legs1, arrival1) is lexicographically smaller than
+    * (legs2, arrival2)
+    */
+  static boolean isBetter(int legs1, int arrival1, int legs2, int arrival2) {
+    return legs1 < legs2 || (legs1 == legs2 && arrival1 < arrival2);
+  }
+
+
+  /** Follows the chosen connections, starting at connection c, and
+    * turns them into an Itinerary.
+    * @return the Itinerary
+    */
+  static Itinerary buildItinerary(ConnectionTable table, int c,
+int[] next, int offset, LocalDate date) {
+    List<ServiceSegment> segments = new ArrayList<ServiceSegment>();
+    int boarding = c;
+    while(true) {
+      int following = next[c - offset];
+      if(following == ARRIVED || table.getTrip(following) != table.getTrip(c)
+|| table.getStop(following) != table.getStop(c) + 1) {
+        int trip = table.getTrip(c);
+        segments.add(new ServiceSegment(table.getService(trip),
+table.getStop(boarding), table.getStop(c) + 1));
+        if(following == ARRIVED)
+          return new Itinerary(date, segments);
+        boarding = following;
+      }
+      c = following;
+    }
+  }
+
+}
@@ -0,0 +1,362 @@
+package mmt.searchengines;
+
+
+import mmt.Service;
+import mmt.Station;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.PriorityQueue;
+
+
+
+/** Flattened view of a timetable: every pair of consecutive stops of every
+  * Service becomes a connection (departing station and time, arriving
+  * station and time). The connections are kept in parallel arrays, sorted by
+  * ascending departure time (and then by ascending arrival time), which is
+  * the order the connection scan algorithms need; the zero-minute connections
+  * of a same minute are then sorted so that they chain.
+  */
+
+public class ConnectionTable {
+
+  /** Services indexed by trip number. */
+  private Service[] _trips;
+  /** Index (in the sorted arrays) of the connection leaving each stop of
+    * each trip; the last stop of a trip has no connection (-1). */
+  private int[][] _connectionAt;
+
+  /** The number of stations. */
+  private int _stationNumber;
+
+  /** Departing station of each connection. */
+  private int[] _depStation;
+  /** Arriving station of each connection. */
+  private int[] _arrStation;
+  /** Departure minute (of the day) of each connection. */
+  private int[] _depTime;
+  /** Arrival minute (of the day) of each connection. */
+  private int[] _arrTime;
+  /** Trip of each connection. */
+  private int[] _trip;
+  /** Stop position (in its trip) where each connection begins. */
+  private int[] _stop;
+
+  /** Connections leaving each station, by ascending departure time. */
+  private int[][] _departures;
+
+  /** The connections by ascending arrival time (and then by ascending
+    * departure time, and then in their order, so that the zero-minute ones of
+    * a same minute still chain when scanned backwards). */
+  private int[] _byArrival;
+
+  /** Trip of every stop at each station, in the order of the trips and then
+    * of the positions. */
+  private int[][] _stopTrips;
+  /** Position (in its trip) of every stop at each station, in the same order. */
+  private int[][] _stopPositions;
+
+
+
+  /** Constructor for class ConnectionTable.
+    * @param services the Services to flatten (their Stations must be registered)
+    * @param stationNumber the number of stations in the StationRegistry
+    * @see mmt.StationRegistry
+    */
+  public ConnectionTable(Collection<Service> services, int stationNumber) {
+    _stationNumber = stationNumber;
+    int tripNumber = services.size();
+    _trips = services.toArray(new Service[tripNumber]);
+    _connectionAt = new int[tripNumber][];
+
+    int total = 0, t;
+    for(Service service : _trips)
+      total += Math.max(service.getStopNumber() - 1, 0);
+
+    /* raw connections are numbered trip by trip, stop by stop; that number
+    is the last sorting criterion, so ties keep the order of each trip */
+    int[] rawTrip = new int[total];
+    int[] rawStop = new int[total];
+    long[] keys = new long[total];
+    int raw = 0;
+    for(t = 0; t < tripNumber; t++)
+      for(int p = 0; p + 1 < _trips[t].getStopNumber(); p++) {
+        rawTrip[raw] = t;
+        rawStop[raw] = p;
+        keys[raw] = ((long) _trips[t].getMinutes(p) << 42) |
+((long) _trips[t].getMinutes(p + 1) << 31) | raw;
+        raw++;
+      }
+    Arrays.sort(keys);
+    int[] order = new int[total];
+    for(int c = 0; c < total; c++)
+      order[c] = (int) (keys[c] & Integer.MAX_VALUE);
+    orderZeroMinuteConnections(order, rawTrip, rawStop);
+
+    _depStation = new int[total];
+    _arrStation = new int[total];
+    _depTime = new int[total];
+    _arrTime = new int[total];
+    _trip = new int[total];
+    _stop = new int[total];
+    for(t = 0; t < tripNumber; t++) {
+      _connectionAt[t] = new int[_trips[t].getStopNumber()];
+      Arrays.fill(_connectionAt[t], -1);
+    }
+
+    int[] departuresNumber = new int[stationNumber];
+    for(int c = 0; c < total; c++) {
+      int r = order[c];
+      t = rawTrip[r];
+      int p = rawStop[r];
+      _trip[c] = t;
+      _stop[c] = p;
+      _depStation[c] = _trips[t].getStationId(p);
+      _arrStation[c] = _trips[t].getStationId(p + 1);
+      _depTime[c] = _trips[t].getMinutes(p);
+      _arrTime[c] = _trips[t].getMinutes(p + 1);
+      _connectionAt[t][p] = c;
+      departuresNumber[_depStation[c]]++;
+    }
+
+    _departures = new int[stationNumber][];
+    for(int s = 0; s < _departures.length; s++)
+      _departures[s] = new int[departuresNumber[s]];
+    Arrays.fill(departuresNumber, 0);
+    for(int c = 0; c < total; c++)
+      _departures[_depStation[c]][departuresNumber[_depStation[c]]++] = c;
+
+    /* the same packing, with the times swapped, gives the arrival order */
+    for(int c = 0; c < total; c++)
+      keys[c] = ((long) _arrTime[c] << 42) | ((long) _depTime[c] << 31) | c;
+    Arrays.sort(keys);
+    _byArrival = new int[total];
+    for(int i = 0; i < total; i++)
+      _byArrival[i] = (int) (keys[i] & Integer.MAX_VALUE);
+
+    int[] stopsNumber = new int[stationNumber];
+    for(t = 0; t < tripNumber; t++)
+      for(int p = 0; p < _trips[t].getStopNumber(); p++)
+        stopsNumber[_trips[t].getStationId(p)]++;
+    _stopTrips = new int[stationNumber][];
+    _stopPositions = new int[stationNumber][];
+    for(int s = 0; s < stationNumber; s++) {
+      _stopTrips[s] = new int[stopsNumber[s]];
+      _stopPositions[s] = new int[stopsNumber[s]];
+    }
+    Arrays.fill(stopsNumber, 0);
+    for(t = 0; t < tripNumber; t++)
+      for(int p = 0; p < _trips[t].getStopNumber(); p++) {
+        int s = _trips[t].getStationId(p);
+        _stopTrips[s][stopsNumber[s]] = t;
+        _stopPositions[s][stopsNumber[s]++] = p;
+      }
+  }
+
+
+  /** Reorders each group of zero-minute connections which depart (and so
+    * arrive) at the same minute, so that the ones arriving at a station come
+    * before the ones leaving it: a scan by ascending departure (or by
+    * descending departure, or by arrival) then chains them like connections
+    * of different minutes. Otherwise the connections keep their order; when
+    * the rest of a group goes around in a circle, its first connection is
+    * taken first (so a chain going through such a circle can still be
+    * missed).
+    * @param order the raw connections, sorted (reordered in place)
+    * @param rawTrip the trip of each raw connection
+    * @param rawStop the stop position where each raw connection begins
+    */
+  private void orderZeroMinuteConnections(int[] order, int[] rawTrip, int[] rawStop) {
+    int[] pending = new int[_stationNumber];
+    for(int first = 0; first < order.length; ) {
+      int time = minutes(order[first], rawTrip, rawStop, 0);
+      int end = first;
+      while(end < order.length && minutes(order[end], rawTrip, rawStop, 0) == time &&
+minutes(order[end], rawTrip, rawStop, 1) == time)
+        end++;
+      if(end - first > 1)
+        orderGroup(order, first, end, rawTrip, rawStop, pending);
+      first = Math.max(end, first + 1);
+    }
+  }
+
+  /** @return the minute of a stop of a raw connection (its departure, for
+    * 0, or its arrival, for 1)
+    */
+  private int minutes(int raw, int[] rawTrip, int[] rawStop, int stop) {
+    return _trips[rawTrip[raw]].getMinutes(rawStop[raw] + stop);
+  }
+
+  /** @return the station of a stop of a raw connection (its departing
+    * station, for 0, or its arriving station, for 1)
+    */
+  private int station(int raw, int[] rawTrip, int[] rawStop, int stop) {
+    return _trips[rawTrip[raw]].getStationId(rawStop[raw] + stop);
+  }
+
+  /** Orders the zero-minute connections order[first..end[ (a topological
+    * sort, taking the earliest in the previous order among the connections
+    * whose departing station isn't reached by any connection left).
+    * @param pending the number of connections left arriving at each station
+    * (all 0, and left so)
+    */
+  private void orderGroup(int[] order, int first, int end, int[] rawTrip,
+int[] rawStop, int[] pending) {
+    int[] group = Arrays.copyOfRange(order, first, end);
+    int size = group.length;
+    /* the connections by departing station, as (station, position) */
+    long[] leaving = new long[size];
+    for(int i = 0; i < size; i++) {
+      int raw = group[i];
+      leaving[i] = (long) station(raw, rawTrip, rawStop, 0) << 32 | i;
+      if(station(raw, rawTrip, rawStop, 0) != station(raw, rawTrip, rawStop, 1))
+        pending[station(raw, rawTrip, rawStop, 1)]++;
+    }
+    Arrays.sort(leaving);
+
+    PriorityQueue<Integer> ready = new PriorityQueue<Integer>();
+    for(int i = 0; i < size; i++)
+      if(pending[station(group[i], rawTrip, rawStop, 0)] == 0)
+        ready.add(i);
+    boolean[] placed = new boolean[size];
+    int earliest = 0; //no connection before it is left
+    for(int c = first; c < end; c++) {
+      int i = -1;
+      while(i < 0 && !ready.isEmpty())
+        if(!placed[ready.peek()])
+          i = ready.poll();
+        else
+          ready.poll();
+      if(i < 0) {
+        /* a circle */
+        while(placed[earliest])
+          earliest++;
+        i = earliest;
+      }
+      placed[i] = true;
+      order[c] = group[i];
+
+      int raw = group[i];
+      int station = station(raw, rawTrip, rawStop, 1);
+      if(station != station(raw, rawTrip, rawStop, 0) && --pending[station] == 0)
+        for(int j = firstLeaving(leaving, station); j < size &&
+(int) (leaving[j] >>> 32) == station; j++)
+          if(!placed[(int) leaving[j]])
+            ready.add((int) leaving[j]);
+    }
+  }
+
+  /** @return the position in leaving (sorted (station, position) pairs) of
+    * the first pair of station
+    */
+  private static int firstLeaving(long[] leaving, int station) {
+    int low = 0, high = leaving.length;
+    while(low < high) {
+      int middle = (low + high) >>> 1;
+      if((leaving[middle] >>> 32) < station)
+        low = middle + 1;
+      else
+        high = middle;
+    }
+    return low;
+  }
+
+
+
+
+  /** @return the number of connections */
+  public int size() {return _depTime.length;}
+  /** @return the number of stations */
+  public int getStationNumber() {return _stationNumber;}
+  /** @return the number of trips (Services) */
+  public int getTripNumber() {return _trips.length;}
+
+  /** @param station
+    * @return the id of the station, or -1 if it isn't registered
+    */
+  public int getStationId(Station station) {
+    return station.getId() < _stationNumber ? station.getId() : -1;
+  }
+
+  /** @return the departing station of connection c */
+  public int getDepartingStation(int c) {return _depStation[c];}
+  /** @return the arriving station of connection c */
+  public int getArrivingStation(int c) {return _arrStation[c];}
+  /** @return the departure minute of connection c */
+  public int getDepartureTime(int c) {return _depTime[c];}
+  /** @return the arrival minute of connection c */
+  public int getArrivalTime(int c) {return _arrTime[c];}
+  /** @return the trip of connection c */
+  public int getTrip(int c) {return _trip[c];}
+  /** @return the stop position where connection c begins */
+  public int getStop(int c) {return _stop[c];}
+
+  /** @return the Service of a trip */
+  public Service getService(int trip) {return _trips[trip];}
+  /** @return the Station at a stop position of a trip */
+  public Station getStation(int trip, int stop) {return _trips[trip].getStation(stop);}
+  /** @return the station id at a stop position of a trip */
+  public int getStationId(int trip, int stop) {return _trips[trip].getStationId(stop);}
+  /** @return the minute of the day at a stop position of a trip */
+  public int getMinutes(int trip, int stop) {return _trips[trip].getMinutes(stop);}
+  /** @return the cost of some minutes of a trip, as a ServiceSegment's (but
+    * nothing for no minutes, even if the trip takes no time) */
+  public double getCost(int trip, int minutes) {
+    return minutes == 0 ? 0 : _trips[trip].getCost(minutes);
+  }
+  /** @return the number of stops of a trip */
+  public int getStopNumber(int trip) {return _trips[trip].getStopNumber();}
+  /** @return the connection leaving a stop of a trip (-1 for the last stop) */
+  public int getConnection(int trip, int stop) {return _connectionAt[trip][stop];}
+
+  /** @return the connections leaving a station, by ascending departure time
+    * (the array must not be modified)
+    */
+  public int[] getDepartures(int station) {return _departures[station];}
+
+  /** @return the trips of the stops at a station, in the order of the trips
+    * and then of the positions (the array must not be modified)
+    * @see mmt.searchengines.ConnectionTable#getStopPositions(int)
+    */
+  public int[] getStopTrips(int station) {return _stopTrips[station];}
+  /** @return the positions of the stops at a station, in the same order as
+    * getStopTrips (the array must not be modified)
+    */
+  public int[] getStopPositions(int station) {return _stopPositions[station];}
+
+  /** @return the i-th connection by ascending arrival time */
+  public int getByArrival(int i) {return _byArrival[i];}
+
+  /** @param time a minute of the day
+    * @return the position (in the arrival order) of the last connection
+    * arriving at or before time, or -1 if there is none
+    * @see mmt.searchengines.ConnectionTable#getByArrival(int)
+    */
+  public int lastArrivingBefore(int time) {
+    int low = 0, high = _byArrival.length;
+    while(low < high) {
+      int middle = (low + high) >>> 1;
+      if(_arrTime[_byArrival[middle]] <= time)
+        low = middle + 1;
+      else
+        high = middle;
+    }
+    return low - 1;
+  }
+
+  /** @param time a minute of the day
+    * @return the index of the first connection departing at or after time
+    */
+  public int firstDepartingAfter(int time) {
+    int low = 0, high = _depTime.length;
+    while(low < high) {
+      int middle = (low + high) >>> 1;
+      if(_depTime[middle] < time)
+        low = middle + 1;
+      else
+        high = middle;
+    }
+    return low;
+  }
+
+}
@@ -0,0 +1,486 @@
+package mmt.searchengines;
+
+
+import mmt.Itinerary;
+import mmt.ServiceSegment;
+import mmt.Station;
+import mmt.TrainCompany;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/** SearchEngine which recursively explores every chain of Services, going
+  * through each Service at most once.
+  * For each Service leaving the departure Station, only the 1. more direct
+  * 2. fastest Itinerary is kept.
+  * The branches of the different departing Services are independent, so in
+  * parallel mode they are searched by the common ForkJoinPool.
+  * The best way to continue after each Service is memoized for the whole
+  * search (it is shared by the branches, and only searched again when it
+  * uses a Service which was already used), and the Services which can't lead
+  * to the arrival at all are never tried.
+  * The search itself works on the ConnectionTable of the TrainCompany, with
+  * minutes of the day and trip numbers, and reuses its sets of used trips:
+  * the only objects it creates are the memoized continuations and the
+  * Itineraries found.
+  */
+
+public class DepthFirstSearch implements SearchEngine {
+
+  /** Value of maxTransfers for no limit. */
+  public static final int UNLIMITED = Integer.MAX_VALUE;
+
+  /** Whether the departing Services are searched in parallel. */
+  private boolean _parallel;
+
+  /** Maximum number of transfers of the Itineraries. */
+  private int _maxTransfers;
+
+
+
+  /** Constructor for class DepthFirstSearch (sequential). */
+  public DepthFirstSearch() {
+    this(false);
+  }
+
+  /** Constructor for class DepthFirstSearch.
+    * @param parallel whether the departing Services are searched in parallel
+    */
+  public DepthFirstSearch(boolean parallel) {
+    this(parallel, UNLIMITED);
+  }
+
+  /** Constructor for class DepthFirstSearch.
+    * @param parallel whether the departing Services are searched in parallel
+    * @param maxTransfers maximum number of transfers of the Itineraries
+    */
+  public DepthFirstSearch(boolean parallel, int maxTransfers) {
+    _parallel = parallel;
+    _maxTransfers = maxTransfers;
+  }
+
+
+  /** @return the maximum number of transfers of the Itineraries */
+  public int getMaxTransfers() {return _maxTransfers;}
+
+
+
+  /** @see mmt.searchengines.SearchEngine#search(TrainCompany,Station,Station,LocalDate) */
+  @Override
+  public List<Itinerary> search(TrainCompany trains, Station departure,
+Station arrival, LocalDate localdate) {
+
+    List<Itinerary> res = new ArrayList<Itinerary>();
+    ConnectionTable table = trains.getConnectionTable();
+    int from = table.getStationId(departure);
+    int to = table.getStationId(arrival);
+    if(from < 0 || to < 0)
+      return res;
+
+    Query query = new Query(table, to, _maxTransfers);
+    int time = departure.getMinutes();
+    int[] trips = table.getStopTrips(from);
+    int[] positions = table.getStopPositions(from);
+    List<Branch> branches = new ArrayList<Branch>();
+    for(int i = 0; i < trips.length; i++)
+      if(table.getMinutes(trips[i], positions[i]) >= time)
+        branches.add(new Branch(query, trips[i], positions[i], localdate));
+
+    Itinerary result;
+    if(_parallel) {
+      for(Branch branch : branches)
+        branch.fork();
+      /* joined in order, so the results are the same as sequentially */
+      for(Branch branch : branches)
+        if((result = branch.join()) != null)
+          res.add(result);
+    }
+    else
+      for(Branch branch : branches)
+        if((result = branch.search()) != null)
+          res.add(result);
+
+    return res;
+  }
+
+
+
+
+  /** The end of an Itinerary: its first segment (a trip, from where it is
+    * boarded to where it is left) and the Tail after it. Tails are immutable,
+    * so the Itineraries which end the same way share them.
+    */
+  private static class Tail {
+    /** The trip of the first segment. */
+    final int _trip;
+    /** Boarding position of the first segment (-1 if it isn't known yet). */
+    final int _first;
+    /** Position where the first segment is left. */
+    final int _last;
+    /** The segments after the first one (null if it reaches the arrival). */
+    final Tail _next;
+    /** The number of segments. */
+    final int _segments;
+    /** The arrival minute. */
+    final int _arrival;
+
+    /** Constructor for class Tail. */
+    Tail(int trip, int first, int last, Tail next, int arrival) {
+      _trip = trip;
+      _first = first;
+      _last = last;
+      _next = next;
+      _segments = next == null ? 1 : next._segments + 1;
+      _arrival = arrival;
+    }
+
+    /** @return true if no trip after the first one is in usedTrips */
+    boolean avoids(BitSet usedTrips) {
+      for(Tail tail = _next; tail != null; tail = tail._next)
+        if(usedTrips.get(tail._trip))
+          return false;
+      return true;
+    }
+  }
+
+
+  /** Value of the Tails which don't exist. */
+  private static final Tail NONE = new Tail(-1, -1, -1, null, -1);
+
+
+
+
+  /** The sets of used trips of a branch, one for each nested computation of
+    * a continuation, kept from one computation to the next (each one is
+    * empty again when it is given back).
+    */
+  private static class Workspace {
+    /** The sets. */
+    private BitSet[] _usedTrips = new BitSet[8];
+    /** The number of sets in use. */
+    private int _depth = 0;
+
+    /** @return an empty set of used trips */
+    BitSet take() {
+      if(_depth == _usedTrips.length)
+        _usedTrips = Arrays.copyOf(_usedTrips, _depth * 2);
+      if(_usedTrips[_depth] == null)
+        _usedTrips[_depth] = new BitSet();
+      return _usedTrips[_depth++];
+    }
+
+    /** Gives back the last set taken, which must be empty. */
+    void release() {_depth--;}
+  }
+
+
+
+
+  /** What the branches of a search share: the trips which can lead to the
+    * arrival at all, and the best way to continue after each trip
+    * (memoized).
+    * The best Tail from a stop, with some trips already used, is the
+    * first (in the order of the search) with the fewest segments and then the
+    * earliest arrival. Using more trips can only remove Tails, so the best
+    * one with only the stop's trip used is still the best whenever it
+    * avoids the other used trips; only when it doesn't must it be searched
+    * again. And a Tail of at most n segments only depends on the Tails of at
+    * most n - 1 segments after it, so searching for Tails of at most 1, 2, ...
+    * segments never goes around in circles, and finds the most direct ones
+    * first.
+    */
+  private static class Query {
+
+    /** The ConnectionTable of the TrainCompany. */
+    ConnectionTable _table;
+    /** The station id of the Station we want to get to. */
+    int _last;
+    /** Maximum number of segments. */
+    int _maxSegments;
+
+    /** The position of the last stop of each trip at the arrival (-1 if it
+      * doesn't stop there). */
+    int[] _lastStop;
+    /** The latest minute at which each trip can be boarded and still lead
+      * to the arrival (-1 if it can't). */
+    int[] _latest;
+
+    /** The best continuation (the Tail which begins where the trip is left,
+      * as a Tail of that trip with an unknown boarding) found after each
+      * trip, with only that trip used; it is also the best one for any larger
+      * maximum number of segments. */
+    AtomicReferenceArray<Tail> _continuations;
+    /** The largest maximum number of segments with which each trip was
+      * found to have no continuation. */
+    AtomicIntegerArray _noContinuation;
+
+
+    /** Constructor for class Query.
+      * @param table
+      * @param last
+      * @param maxTransfers
+      */
+    Query(ConnectionTable table, int last, int maxTransfers) {
+      _table = table;
+      _last = last;
+      _maxSegments = maxTransfers == UNLIMITED ? UNLIMITED : maxTransfers + 1;
+      int trips = table.getTripNumber();
+      _lastStop = new int[trips];
+      _latest = new int[trips];
+      Arrays.fill(_latest, -1);
+      _continuations = new AtomicReferenceArray<Tail>(trips);
+      _noContinuation = new AtomicIntegerArray(trips);
+      reaching();
+    }
+
+
+    /** Finds the trips which can lead to the arrival: the ones which
+      * stop there, and then, until nothing changes, the ones from which any
+      * of those can be taken (ignoring which trips are used).
+      */
+    private void reaching() {
+      int[] others = new int[_lastStop.length];
+      int othersNumber = 0;
+      for(int trip = 0; trip < _lastStop.length; trip++) {
+        _lastStop[trip] = -1;
+        for(int p = _table.getStopNumber(trip) - 1; p >= 0 && _lastStop[trip] < 0; p--)
+          if(_table.getStationId(trip, p) == _last)
+            _lastStop[trip] = p;
+        if(_lastStop[trip] >= 0)
+          _latest[trip] = _table.getMinutes(trip, _lastStop[trip]);
+        else
+          others[othersNumber++] = trip;
+      }
+
+      boolean changed = true;
+      while(changed) {
+        changed = false;
+        for(int i = 0; i < othersNumber; i++) {
+          int trip = others[i];
+          int first = _table.getStationId(trip, 0);
+          for(int p = 0; p < _table.getStopNumber(trip) && _latest[trip] < 0; p++) {
+            int station = _table.getStationId(trip, p);
+            if(station == first)
+              continue;
+            int time = _table.getMinutes(trip, p);
+            int[] trips = _table.getStopTrips(station);
+            int[] positions = _table.getStopPositions(station);
+            for(int j = 0; j < trips.length; j++)
+              if(time <= _table.getMinutes(trips[j], positions[j]) &&
+reaches(trips[j], positions[j])) {
+                _latest[trip] = Integer.MAX_VALUE;
+                changed = true;
+                break;
+              }
+          }
+        }
+      }
+    }
+
+
+    /** @return true if the arrival may be reached after boarding trip at
+      * position
+      */
+    boolean reaches(int trip, int position) {
+      return _table.getMinutes(trip, position) <= _latest[trip];
+    }
+
+    /** @param trip a trip which stops at the arrival
+      * @param position the boarding position
+      * @return the position of its first stop at the arrival no earlier than
+      * the boarding, or -1
+      */
+    int arrivalStop(int trip, int position) {
+      int time = _table.getMinutes(trip, position);
+      for(int p = 0; p < _table.getStopNumber(trip); p++)
+        if(_table.getStationId(trip, p) == _last && _table.getMinutes(trip, p) >= time)
+          return p;
+      return -1;
+    }
+
+
+    /** @return the best continuation after trip, with only it used, or NONE
+      * @see mmt.searchengines.DepthFirstSearch.Query#search(int,BitSet,int,Workspace)
+      */
+    Tail continuation(int trip, int segments, Workspace workspace) {
+      Tail res = _continuations.get(trip);
+      if(res != null)
+        return segments >= res._segments ? res : NONE;
+      if(segments <= _noContinuation.get(trip))
+        return NONE;
+
+      BitSet usedTrips = workspace.take();
+      usedTrips.set(trip);
+      res = search(trip, usedTrips, segments, workspace);
+      usedTrips.clear(trip);
+      workspace.release();
+      if(res != NONE)
+        _continuations.set(trip, res);
+      else
+        _noContinuation.set(trip, Math.max(_noContinuation.get(trip), segments));
+      return res;
+    }
+
+
+    /** Tries every stop (of another unused trip) where trip can be
+      * left for, in the order of the stations of trip and then of the
+      * trips, taking only the first possible stop of each trip.
+      * The trips which stop at the arrival are always left there; the others
+      * go on with their continuation, or, if it uses a used trip, with the
+      * one searched with the used trips.
+      * @param trip a trip which doesn't stop at the arrival
+      * @param usedTrips the used trips (including trip)
+      * @param segments the maximum number of segments (including trip's)
+      * @param workspace
+      * @return the best continuation after trip, or NONE
+      */
+    private Tail search(int trip, BitSet usedTrips, int segments, Workspace workspace) {
+      if(segments < 2)
+        return NONE;
+      int bestPosition = -1, bestTrip = -1, bestFirst = -1, bestLast = -1;
+      int bestSegments = 0, bestArrival = 0;
+      Tail bestNext = null;
+
+      int first = _table.getStationId(trip, 0);
+      for(int p = 0; p < _table.getStopNumber(trip); p++) {
+        int station = _table.getStationId(trip, p);
+        if(station == first)
+          continue;
+        int time = _table.getMinutes(trip, p);
+        int[] trips = _table.getStopTrips(station);
+        int[] positions = _table.getStopPositions(station);
+        int previous = -1; //the last trip tried from this station
+        for(int j = 0; j < trips.length; j++) {
+          int next = trips[j], q = positions[j];
+          if(next == previous || usedTrips.get(next) || time > _table.getMinutes(next, q))
+            continue;
+          previous = next;
+          if(!reaches(next, q))
+            continue;
+
+          int last, tailSegments, arrival;
+          Tail tail;
+          if(_lastStop[next] >= 0) {
+            if((last = arrivalStop(next, q)) < 0)
+              continue;
+            tail = null;
+            tailSegments = 1;
+            arrival = _table.getMinutes(next, last);
+          }
+          else {
+            usedTrips.set(next);
+            Tail continuation = continuation(next, segments - 1, workspace);
+            if(continuation != NONE && !continuation.avoids(usedTrips))
+              continuation = search(next, usedTrips, segments - 1, workspace);
+            usedTrips.clear(next);
+            if(continuation == NONE)
+              continue;
+            last = continuation._last;
+            tail = continuation._next;
+            tailSegments = continuation._segments;
+            arrival = continuation._arrival;
+          }
+
+          if(bestTrip < 0 || tailSegments < bestSegments ||
+(tailSegments == bestSegments && arrival < bestArrival)) {
+            bestPosition = p;
+            bestTrip = next;
+            bestFirst = q;
+            bestLast = last;
+            bestNext = tail;
+            bestSegments = tailSegments;
+            bestArrival = arrival;
+          }
+        }
+      }
+
+      if(bestTrip < 0)
+        return NONE;
+      return new Tail(trip, -1, bestPosition, new Tail(bestTrip, bestFirst,
+bestLast, bestNext, bestArrival), bestArrival);
+    }
+  }
+
+
+
+
+  /** The search of the best Itinerary starting with one departing trip:
+    * the best Tail from its stop, with at most 1, 2, ... segments.
+    */
+  private static class Branch extends RecursiveTask<Itinerary> {
+
+    /** Serial number for serialization. */
+    private static final long serialVersionUID = 201712011200L;
+
+    /** The search's Query. */
+    private Query _query;
+    /** The departing trip. */
+    private int _trip;
+    /** The departing trip's boarding position. */
+    private int _position;
+    /** The date of the Itineraries. */
+    private LocalDate _localdate;
+
+
+    /** Constructor for class Branch.
+      * @param query
+      * @param trip
+      * @param position
+      * @param localdate
+      */
+    Branch(Query query, int trip, int position, LocalDate localdate) {
+      _query = query;
+      _trip = trip;
+      _position = position;
+      _localdate = localdate;
+    }
+
+
+    /** @see java.util.concurrent.RecursiveTask#compute() */
+    @Override
+    protected Itinerary compute() {
+      return search();
+    }
+
+    /** @return the best Itinerary starting with the departing trip, or
+      * null if none were found
+      */
+    Itinerary search() {
+      if(!_query.reaches(_trip, _position) || _query._maxSegments < 1)
+        return null;
+
+      Tail tail = NONE;
+      if(_query._lastStop[_trip] >= 0) {
+        int last = _query.arrivalStop(_trip, _position);
+        if(last >= 0)
+          tail = new Tail(_trip, _position, last, null, -1);
+      }
+      else {
+        /* (no Itinerary has more segments than there are trips) */
+        Workspace workspace = new Workspace();
+        for(int segments = 2; segments <= _query._maxSegments &&
+segments <= _query._table.getTripNumber() && tail == NONE; segments++)
+          tail = _query.continuation(_trip, segments, workspace);
+        if(tail != NONE)
+          tail = new Tail(_trip, _position, tail._last, tail._next, tail._arrival);
+      }
+      if(tail == NONE)
+        return null;
+
+      ConnectionTable table = _query._table;
+      List<ServiceSegment> segments = new ArrayList<ServiceSegment>();
+      for(; tail != null; tail = tail._next)
+        segments.add(new ServiceSegment(table.getService(tail._trip),
+tail._first, tail._last));
+      return new Itinerary(_localdate, segments);
+    }
+  }
+
+}
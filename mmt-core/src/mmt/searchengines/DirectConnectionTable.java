@@ -0,0 +1,181 @@
+package mmt.searchengines;
+
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.HashSet;
+
+
+
+/** For each pair of stations (a, b), the rides from a to b without changing
+  * Service: every stop of every trip at a, with the first later stop of the
+  * same trip at b. The rides of each pair are sorted by departure, so the
+  * earliest arrival at b leaving a at or after some time is found by a
+  * binary search.
+  */
+
+public class DirectConnectionTable {
+
+  /** The rides between one pair of stations. */
+  public static class Rides {
+    /** Trip of each ride. */
+    private int[] _trip = new int[2];
+    /** Boarding stop position of each ride. */
+    private int[] _boarding = new int[2];
+    /** Alighting stop position of each ride. */
+    private int[] _alighting = new int[2];
+    /** Departure minute of each ride. */
+    private int[] _departure = new int[2];
+    /** Arrival minute of each ride. */
+    private int[] _arrival = new int[2];
+    /** Ride with the earliest arrival among the rides from each one on. */
+    private int[] _earliest;
+    /** The number of rides. */
+    private int _size = 0;
+
+    /** Appends a ride (before sort() is called). */
+    void add(int trip, int boarding, int alighting, int departure, int arrival) {
+      if(_size == _trip.length) {
+        _trip = Arrays.copyOf(_trip, _size * 2);
+        _boarding = Arrays.copyOf(_boarding, _size * 2);
+        _alighting = Arrays.copyOf(_alighting, _size * 2);
+        _departure = Arrays.copyOf(_departure, _size * 2);
+        _arrival = Arrays.copyOf(_arrival, _size * 2);
+      }
+      _trip[_size] = trip;
+      _boarding[_size] = boarding;
+      _alighting[_size] = alighting;
+      _departure[_size] = departure;
+      _arrival[_size] = arrival;
+      _size++;
+    }
+
+    /** Sorts the rides by departure (then by trip and boarding stop) and
+      * computes the earliest arrivals.
+      */
+    void sort() {
+      Integer[] order = new Integer[_size];
+      for(int i = 0; i < _size; i++)
+        order[i] = i;
+      Arrays.sort(order, new Comparator<Integer>() {
+        @Override
+        public int compare(Integer i, Integer j) {
+          if(_departure[i] != _departure[j])
+            return Integer.compare(_departure[i], _departure[j]);
+          if(_trip[i] != _trip[j])
+            return Integer.compare(_trip[i], _trip[j]);
+          return Integer.compare(_boarding[i], _boarding[j]);
+        }
+      });
+      _trip = permute(_trip, order);
+      _boarding = permute(_boarding, order);
+      _alighting = permute(_alighting, order);
+      _departure = permute(_departure, order);
+      _arrival = permute(_arrival, order);
+
+      _earliest = new int[_size];
+      for(int i = _size - 1; i >= 0; i--)
+        _earliest[i] = i + 1 < _size && _arrival[_earliest[i + 1]] < _arrival[i] ?
+_earliest[i + 1] : i;
+    }
+
+    /** @return the elements of array in the given order */
+    private static int[] permute(int[] array, Integer[] order) {
+      int[] res = new int[order.length];
+      for(int i = 0; i < order.length; i++)
+        res[i] = array[order[i]];
+      return res;
+    }
+
+
+    /** @return the number of rides */
+    public int size() {return _size;}
+    /** @return the trip of ride i */
+    public int getTrip(int i) {return _trip[i];}
+    /** @return the boarding stop position of ride i */
+    public int getBoarding(int i) {return _boarding[i];}
+    /** @return the alighting stop position of ride i */
+    public int getAlighting(int i) {return _alighting[i];}
+    /** @return the departure minute of ride i */
+    public int getDeparture(int i) {return _departure[i];}
+    /** @return the arrival minute of ride i */
+    public int getArrival(int i) {return _arrival[i];}
+
+    /** @param time a minute of the day
+      * @return the index of the first ride departing at or after time
+      */
+    public int firstDepartingAfter(int time) {
+      int low = 0, high = _size;
+      while(low < high) {
+        int middle = (low + high) >>> 1;
+        if(_departure[middle] < time)
+          low = middle + 1;
+        else
+          high = middle;
+      }
+      return low;
+    }
+
+    /** @param time a minute of the day
+      * @return the ride departing at or after time which arrives first, or -1
+      * if there is none
+      */
+    public int earliestArrival(int time) {
+      int i = firstDepartingAfter(time);
+      return i < _size ? _earliest[i] : -1;
+    }
+  }
+
+
+
+  /** The rides of each pair of stations (a, b), by a * (number of stations) + b. */
+  private Map<Long, Rides> _rides = new HashMap<Long, Rides>();
+
+  /** The number of stations. */
+  private int _stationNumber;
+
+
+
+  /** Constructor for class DirectConnectionTable.
+    * @param connections
+    */
+  public DirectConnectionTable(ConnectionTable connections) {
+    _stationNumber = connections.getStationNumber();
+    for(int t = 0; t < connections.getTripNumber(); t++) {
+      int stops = connections.getStopNumber(t);
+      for(int a = 0; a < stops; a++) {
+        int from = connections.getService(t).getStationId(a);
+        int departure = connections.getService(t).getMinutes(a);
+        Set<Integer> reached = new HashSet<Integer>();
+        for(int b = a + 1; b < stops; b++) {
+          int to = connections.getService(t).getStationId(b);
+          if(!reached.add(to))
+            continue;
+          long key = (long) from * _stationNumber + to;
+          Rides rides = _rides.get(key);
+          if(rides == null) {
+            rides = new Rides();
+            _rides.put(key, rides);
+          }
+          rides.add(t, a, b, departure, connections.getService(t).getMinutes(b));
+        }
+      }
+    }
+    for(Rides rides : _rides.values())
+      rides.sort();
+  }
+
+
+
+  /** @param from a station id
+    * @param to a station id
+    * @return the rides from from to to, or null if there are none
+    */
+  public Rides getRides(int from, int to) {
+    return _rides.get((long) from * _stationNumber + to);
+  }
+
+}
@@ -0,0 +1,110 @@
+package mmt.searchengines;
+
+
+import mmt.Itinerary;
+import mmt.ServiceSegment;
+import mmt.Station;
+import mmt.TrainCompany;
+
+import java.time.LocalDate;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.LinkedHashMap;
+import java.util.Arrays;
+import java.util.Comparator;
+
+
+/** One-to-all query based on the Connection Scan Algorithm: finds the
+  * earliest arrival at every station which can be reached from a Station
+  * within some minutes, and an Itinerary which arrives then.
+  * The connections are scanned once, by ascending departure, from the
+  * departure time to the end of the time budget; the zero-minute ones of a
+  * same minute come in the order they chain (see ConnectionTable), so a
+  * station reached by one of them can be left by another at that minute.
+  */
+
+public class IsochroneScan {
+
+  /** Value used for unreached stations and unboarded trips. */
+  private static final int NONE = -1;
+
+
+
+  /** @param trains
+    * @param departure the departure Station, at the departure time
+    * @param minutes the time budget
+    * @param date the Itineraries' date
+    * @return the Stations reached (each one at its earliest arrival time) and
+    * an Itinerary to each of them, by ascending arrival
+    */
+  public Map<Station, Itinerary> search(TrainCompany trains, Station departure,
+int minutes, LocalDate date) {
+
+    Map<Station, Itinerary> res = new LinkedHashMap<Station, Itinerary>();
+    ConnectionTable table = trains.getConnectionTable();
+    int from = table.getStationId(departure);
+    if(from < 0)
+      return res;
+
+    int time = departure.getMinutes();
+    int limit = time + minutes;
+
+    final int[] arrival = new int[table.getStationNumber()];
+    Arrays.fill(arrival, Integer.MAX_VALUE);
+    arrival[from] = time;
+
+    /* the connection each station was reached by, and where its trip was
+    boarded; the first connection taken of each trip */
+    int[] alighting = new int[table.getStationNumber()];
+    int[] boarding = new int[table.getStationNumber()];
+    int[] tripBoarding = new int[table.getTripNumber()];
+    Arrays.fill(tripBoarding, NONE);
+
+    for(int c = table.firstDepartingAfter(time); c < table.size() &&
+table.getDepartureTime(c) <= limit; c++) {
+      int trip = table.getTrip(c);
+      if(tripBoarding[trip] == NONE) {
+        if(arrival[table.getDepartingStation(c)] > table.getDepartureTime(c))
+          continue;
+        tripBoarding[trip] = c;
+      }
+      int station = table.getArrivingStation(c);
+      if(table.getArrivalTime(c) < arrival[station] && table.getArrivalTime(c) <= limit) {
+        arrival[station] = table.getArrivalTime(c);
+        alighting[station] = c;
+        boarding[station] = tripBoarding[trip];
+      }
+    }
+
+    /* the stations by ascending arrival */
+    Integer[] reached = new Integer[table.getStationNumber()];
+    int size = 0;
+    for(int s = 0; s < reached.length; s++)
+      if(s != from && arrival[s] != Integer.MAX_VALUE)
+        reached[size++] = s;
+    reached = Arrays.copyOf(reached, size);
+    Arrays.sort(reached, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer s1, Integer s2) {
+        if(arrival[s1] != arrival[s2])
+          return Integer.compare(arrival[s1], arrival[s2]);
+        return Integer.compare(s1, s2);
+      }
+    });
+
+    for(int s : reached) {
+      LinkedList<ServiceSegment> segments = new LinkedList<ServiceSegment>();
+      for(int station = s; station != from; ) {
+        int trip = table.getTrip(alighting[station]);
+        int first = table.getStop(boarding[station]);
+        segments.addFirst(new ServiceSegment(table.getService(trip),
+first, table.getStop(alighting[station]) + 1));
+        station = table.getDepartingStation(boarding[station]);
+      }
+      Itinerary itinerary = new Itinerary(date, segments);
+      res.put(segments.getLast().getLastStation(), itinerary);
+    }
+    return res;
+  }
+
+}
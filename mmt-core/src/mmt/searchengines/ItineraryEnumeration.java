@@ -0,0 +1,261 @@
+package mmt.searchengines;
+
+
+import mmt.Itinerary;
+import mmt.Service;
+import mmt.ServiceSegment;
+import mmt.Station;
+import mmt.TrainCompany;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.HashSet;
+
+
+/** Lazily enumerates the Itineraries between two Stations in their natural
+  * order (by departure and then by arrival), each one taking every Service
+  * at most once.
+  * Partial Itineraries are kept in a priority queue, ordered by their
+  * departure and by a lower bound of their arrival (the earliest arrival
+  * from where they are, computed by one backward scan of the connections),
+  * so an Itinerary is complete when it leaves the queue and only the
+  * partial ones which may come before it are ever extended.
+  * Optionally, Itineraries using the same sequence of Services as an earlier
+  * one are skipped, so that the results are diverse.
+  * @see mmt.Itinerary#compareTo(Itinerary)
+  */
+
+public class ItineraryEnumeration implements Iterator<Itinerary> {
+
+  /** A partial Itinerary: its last segment and the previous ones. */
+  private static class Node {
+    /** Trip of the last segment. */
+    int _trip;
+    /** Boarding stop position of the last segment. */
+    int _boarding;
+    /** Alighting stop position of the last segment. */
+    int _alighting;
+    /** Departure minute of the Itinerary. */
+    int _departure;
+    /** Arrival minute at the end of the last segment. */
+    int _arrival;
+    /** Lower bound of the arrival minute of the complete Itinerary. */
+    int _bound;
+    /** Number of segments. */
+    int _segments;
+    /** Order of creation, to break ties. */
+    long _order;
+    /** The partial Itinerary without its last segment (null for the first). */
+    Node _parent;
+
+    /** @return true if trip is used by this partial Itinerary */
+    boolean uses(int trip) {
+      for(Node node = this; node != null; node = node._parent)
+        if(node._trip == trip)
+          return true;
+      return false;
+    }
+  }
+
+
+
+  /** The ConnectionTable of the TrainCompany. */
+  private ConnectionTable _table;
+  /** The arrival station. */
+  private int _to;
+  /** The Itineraries' date. */
+  private LocalDate _date;
+  /** Whether Itineraries with an earlier one's sequence of Services are skipped. */
+  private boolean _diverse;
+
+  /** The best ways of reaching the arrival station from each station. */
+  private ConnectionScan.Profile[] _profiles;
+
+  /** The partial Itineraries. */
+  private PriorityQueue<Node> _queue = new PriorityQueue<Node>(11, new Comparator<Node>() {
+    @Override
+    public int compare(Node n1, Node n2) {
+      if(n1._departure != n2._departure)
+        return Integer.compare(n1._departure, n2._departure);
+      if(n1._bound != n2._bound)
+        return Integer.compare(n1._bound, n2._bound);
+      if(n1._segments != n2._segments)
+        return Integer.compare(n1._segments, n2._segments);
+      return Long.compare(n1._order, n2._order);
+    }
+  });
+  /** Number of Nodes created. */
+  private long _created = 0;
+
+  /** The sequences of Services already given (if _diverse). */
+  private Set<List<Integer>> _sequences = new HashSet<List<Integer>>();
+
+  /** The next Itinerary, if it was already found. */
+  private Node _next;
+
+
+
+  /** Constructor for class ItineraryEnumeration.
+    * @param trains
+    * @param departure the departure Station, at the earliest departure time
+    * @param arrival
+    * @param date the Itineraries' date
+    * @param diverse whether Itineraries with the sequence of Services of an
+    * earlier one are skipped
+    */
+  public ItineraryEnumeration(TrainCompany trains, Station departure,
+Station arrival, LocalDate date, boolean diverse) {
+    _table = trains.getConnectionTable();
+    _date = date;
+    _diverse = diverse;
+    int from = _table.getStationId(departure);
+    _to = _table.getStationId(arrival);
+    if(from < 0 || _to < 0)
+      return;
+
+    int time = departure.getMinutes();
+    scan(time);
+    for(int c : _table.getDepartures(from))
+      if(_table.getDepartureTime(c) >= time)
+        board(null, c);
+  }
+
+
+
+  /** Computes the earliest arrival at the arrival station from every
+    * station, at every time after time.
+    */
+  private void scan(int time) {
+    final int INFINITY = ConnectionScan.INFINITY;
+    int[] tripArrival = new int[_table.getTripNumber()];
+    Arrays.fill(tripArrival, INFINITY);
+    _profiles = new ConnectionScan.Profile[_table.getStationNumber()];
+
+    for(int c = _table.size() - 1; c >= _table.firstDepartingAfter(time); c--) {
+      int trip = _table.getTrip(c);
+      int station = _table.getArrivingStation(c);
+      int best = station == _to ? _table.getArrivalTime(c) : tripArrival[trip];
+      best = Math.min(best, bound(station, _table.getArrivalTime(c)));
+      if(best == INFINITY)
+        continue;
+      tripArrival[trip] = best;
+
+      station = _table.getDepartingStation(c);
+      ConnectionScan.Profile profile = _profiles[station];
+      if(profile == null)
+        profile = _profiles[station] = new ConnectionScan.Profile();
+      if(profile._size == 0 || best < profile._arrival[profile._size - 1])
+        profile.add(_table.getDepartureTime(c), 0, best, c);
+    }
+  }
+
+
+  /** @return the earliest arrival at the arrival station leaving station at
+    * or after time (INFINITY if it can't be reached)
+    */
+  private int bound(int station, int time) {
+    if(station == _to)
+      return time;
+    ConnectionScan.Profile profile = _profiles[station];
+    int entry = profile == null ? -1 : profile.best(time);
+    return entry < 0 ? ConnectionScan.INFINITY : profile._arrival[entry];
+  }
+
+
+  /** Adds to the queue the partial Itineraries which extend parent by
+    * taking connection c and getting off at any later stop.
+    */
+  private void board(Node parent, int c) {
+    int trip = _table.getTrip(c);
+    if(parent != null && parent.uses(trip))
+      return;
+    Service service = _table.getService(trip);
+    int boarding = _table.getStop(c);
+    for(int p = boarding + 1; p < service.getStopNumber(); p++) {
+      int bound = bound(service.getStationId(p), service.getMinutes(p));
+      if(bound == ConnectionScan.INFINITY)
+        continue;
+      Node node = new Node();
+      node._trip = trip;
+      node._boarding = boarding;
+      node._alighting = p;
+      node._departure = parent == null ? _table.getDepartureTime(c) : parent._departure;
+      node._arrival = service.getMinutes(p);
+      node._bound = bound;
+      node._segments = parent == null ? 1 : parent._segments + 1;
+      node._order = _created++;
+      node._parent = parent;
+      _queue.add(node);
+    }
+  }
+
+
+  /** Extends the partial Itineraries until a complete one leaves the queue.
+    * @return the next complete Itinerary, or null if there are no more
+    */
+  private Node advance() {
+    Node node;
+    while((node = _queue.poll()) != null) {
+      int station = _table.getService(node._trip).getStationId(node._alighting);
+      if(station == _to) {
+        if(!_diverse || _sequences.add(services(node)))
+          return node;
+        continue;
+      }
+      int[] departures = _table.getDepartures(station);
+      for(int c : departures)
+        if(_table.getDepartureTime(c) >= node._arrival)
+          board(node, c);
+    }
+    return null;
+  }
+
+
+  /** @return the trips of a partial Itinerary, from the first one */
+  private static List<Integer> services(Node node) {
+    LinkedList<Integer> res = new LinkedList<Integer>();
+    for(; node != null; node = node._parent)
+      res.addFirst(node._trip);
+    return res;
+  }
+
+
+
+
+  /** @see java.util.Iterator#hasNext() */
+  @Override
+  public boolean hasNext() {
+    if(_next == null)
+      _next = advance();
+    return _next != null;
+  }
+
+  /** @see java.util.Iterator#next() */
+  @Override
+  public Itinerary next() {
+    if(!hasNext())
+      throw new NoSuchElementException();
+    LinkedList<ServiceSegment> segments = new LinkedList<ServiceSegment>();
+    for(Node node = _next; node != null; node = node._parent) {
+      Service service = _table.getService(node._trip);
+      segments.addFirst(new ServiceSegment(service, node._boarding,
+node._alighting));
+    }
+    _next = null;
+    return new Itinerary(_date, segments);
+  }
+
+  /** @see java.util.Iterator#remove() */
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+}
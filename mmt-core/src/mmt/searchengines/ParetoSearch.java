@@ -0,0 +1,184 @@
+package mmt.searchengines;
+
+
+import mmt.Itinerary;
+import mmt.ServiceSegment;
+import mmt.Station;
+import mmt.TrainCompany;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.LinkedList;
+
+
+/** SearchEngine which finds every Pareto-optimal Itinerary by arrival time,
+  * cost and number of segments (so that, for instance, both the cheapest and
+  * the fastest Itineraries are found).
+  * The connections are scanned once by ascending departure, keeping a bag of
+  * non-dominated labels in each station and in each trip (costed just like
+  * the ServiceSegments); dominated labels
+  * (including the ones dominated by a label of the arrival Station) are
+  * discarded as soon as they appear.
+  */
+
+public class ParetoSearch implements SearchEngine {
+
+  /** A partial Itinerary: being at a station, or on a trip. */
+  private static class Label {
+    /** Arrival (at a station) or boarding (on a trip) minute. */
+    int _time;
+    /** Cost until _time. */
+    double _cost;
+    /** Number of segments. */
+    int _segments;
+    /** Label this one was extended from (null for the departure). */
+    Label _parent;
+    /** Connection of the boarding (trip labels) or alighting (station labels). */
+    int _connection;
+
+    Label(int time, double cost, int segments, Label parent, int connection) {
+      _time = time;
+      _cost = cost;
+      _segments = segments;
+      _parent = parent;
+      _connection = connection;
+    }
+
+    /** @return true if this label is at least as good as (time, cost, segments) */
+    boolean dominates(int time, double cost, int segments) {
+      return _time <= time && noDearer(_cost, cost) && _segments <= segments;
+    }
+  }
+
+
+  /** Costs closer than this are the same fare (they are sums of prorated
+    * doubles, so equal fares may be added up differently). */
+  private static final double COST_TOLERANCE = 1e-9;
+
+
+
+  /** @see mmt.searchengines.SearchEngine#search(TrainCompany,Station,Station,LocalDate) */
+  @Override
+  public List<Itinerary> search(TrainCompany trains, Station departure,
+Station arrival, LocalDate date) {
+
+    List<Itinerary> res = new ArrayList<Itinerary>();
+    ConnectionTable table = trains.getConnectionTable();
+    int from = table.getStationId(departure);
+    int to = table.getStationId(arrival);
+    if(from < 0 || to < 0 || from == to)
+      return res;
+
+    int time = departure.getMinutes();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    List<Label>[] stationBags = new List[table.getStationNumber()];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    List<Label>[] tripBags = new List[table.getTripNumber()];
+    stationBags[from] = new ArrayList<Label>();
+    stationBags[from].add(new Label(time, 0, 0, null, -1));
+    stationBags[to] = new ArrayList<Label>();
+
+    for(int c = table.firstDepartingAfter(time); c < table.size(); c++) {
+      int trip = table.getTrip(c);
+      int departing = table.getDepartingStation(c);
+      int arriving = table.getArrivingStation(c);
+
+      /* boarding the trip from the labels of the departing station */
+      if(stationBags[departing] != null && departing != to)
+        for(Label label : stationBags[departing])
+          if(label._time <= table.getDepartureTime(c)) {
+            /* labels on the same trip are compared by their cost at the
+            departure of this connection */
+            if(tripBags[trip] == null)
+              tripBags[trip] = new ArrayList<Label>();
+            Label boarding = new Label(table.getDepartureTime(c), label._cost,
+label._segments + 1, label, c);
+            insert(tripBags[trip], boarding, table, trip, table.getDepartureTime(c));
+          }
+
+      /* getting off at the arriving station */
+      if(tripBags[trip] != null && arriving != from)
+        for(Label label : tripBags[trip]) {
+          int arrivalTime = table.getArrivalTime(c);
+          double cost = label._cost + table.getCost(trip, arrivalTime - label._time);
+          if(dominated(stationBags[to], arrivalTime, cost, label._segments))
+            continue;
+          if(stationBags[arriving] == null)
+            stationBags[arriving] = new ArrayList<Label>();
+          if(!dominated(stationBags[arriving], arrivalTime, cost, label._segments)) {
+            removeDominated(stationBags[arriving], arrivalTime, cost, label._segments);
+            stationBags[arriving].add(new Label(arrivalTime, cost, label._segments, label, c));
+          }
+        }
+    }
+
+    for(Label label : stationBags[to])
+      res.add(buildItinerary(table, label, date));
+    return res;
+  }
+
+
+
+  /** @return true if a label in bag is at least as good as (time, cost, segments) */
+  private static boolean dominated(List<Label> bag, int time, double cost, int segments) {
+    for(Label label : bag)
+      if(label.dominates(time, cost, segments))
+        return true;
+    return false;
+  }
+
+
+  /** Removes from bag the labels which are not better than (time, cost, segments). */
+  private static void removeDominated(List<Label> bag, int time, double cost, int segments) {
+    for(int i = bag.size() - 1; i >= 0; i--) {
+      Label label = bag.get(i);
+      if(time <= label._time && noDearer(cost, label._cost) && segments <= label._segments)
+        bag.remove(i);
+    }
+  }
+
+
+  /** Inserts a label in the bag of a trip, comparing the labels by their
+    * cost and number of segments at time now.
+    * @see mmt.searchengines.ConnectionTable#getCost(int,int)
+    */
+  private static void insert(List<Label> bag, Label boarding, ConnectionTable table,
+int trip, int now) {
+    for(int i = bag.size() - 1; i >= 0; i--) {
+      Label label = bag.get(i);
+      double cost = label._cost + table.getCost(trip, now - label._time);
+      if(noDearer(cost, boarding._cost) && label._segments <= boarding._segments)
+        return;
+      if(noDearer(boarding._cost, cost) && boarding._segments <= label._segments)
+        bag.remove(i);
+    }
+    bag.add(boarding);
+  }
+
+
+  /** @return true if cost1 is not dearer than cost2 (up to COST_TOLERANCE) */
+  private static boolean noDearer(double cost1, double cost2) {
+    return cost1 <= cost2 + COST_TOLERANCE;
+  }
+
+
+  /** Follows the labels back from a label of the arrival station and turns
+    * them into an Itinerary.
+    * @return the Itinerary
+    */
+  private static Itinerary buildItinerary(ConnectionTable table, Label label,
+LocalDate date) {
+    LinkedList<ServiceSegment> segments = new LinkedList<ServiceSegment>();
+    for(; label._parent != null; label = label._parent._parent) {
+      int alighting = label._connection;
+      int boarding = label._parent._connection;
+      int trip = table.getTrip(alighting);
+      segments.addFirst(new ServiceSegment(table.getService(trip),
+table.getStop(boarding), table.getStop(alighting) + 1));
+    }
+    return new Itinerary(date, segments);
+  }
+
+}
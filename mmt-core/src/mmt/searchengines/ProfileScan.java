@@ -0,0 +1,135 @@
+package mmt.searchengines;
+
+
+import mmt.Itinerary;
+import mmt.Station;
+import mmt.TrainCompany;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+
+/** Profile (range) query based on the Connection Scan Algorithm: finds
+  * every Itinerary leaving in a window of time which is not dominated by
+  * another one of the window (leaving no earlier and arriving no later).
+  * The connections are scanned once, from the latest to the earliest
+  * departure (the zero-minute ones of a same minute after the ones they lead
+  * to, see ConnectionTable), computing for each one the earliest arrival
+  * (and then the fewest segments) at the arrival Station after taking it;
+  * the best ways of leaving the departure Station, at every time, are then
+  * the result.
+  */
+
+public class ProfileScan {
+
+  /** @param trains
+    * @param departure the departure Station, at the beginning of the window
+    * @param latest the end of the window
+    * @param arrival
+    * @param date the Itineraries' date
+    * @return the non-dominated Itineraries leaving departure between its time
+    * and latest, by descending departure
+    */
+  public List<Itinerary> search(TrainCompany trains, Station departure,
+LocalTime latest, Station arrival, LocalDate date) {
+
+    final int INFINITY = ConnectionScan.INFINITY;
+    final int ARRIVED = ConnectionScan.ARRIVED;
+    List<Itinerary> res = new ArrayList<Itinerary>();
+    ConnectionTable table = trains.getConnectionTable();
+    int from = table.getStationId(departure);
+    int to = table.getStationId(arrival);
+    if(from < 0 || to < 0 || from == to)
+      return res;
+
+    int time = departure.getMinutes();
+    int last = Station.minutes(latest);
+    int offset = table.firstDepartingAfter(time);
+    int size = table.size() - offset;
+
+    /* the next connection taken after each connection (indexed from offset) */
+    int[] next = new int[size];
+
+    int[] tripArrival = new int[table.getTripNumber()];
+    int[] tripLegs = new int[table.getTripNumber()];
+    int[] tripNext = new int[table.getTripNumber()];
+    Arrays.fill(tripArrival, INFINITY);
+
+    /* (the arrival is the first criterion here, so the pairs given to
+    ConnectionScan.isBetter() are (arrival, legs)) */
+    ConnectionScan.Profile[] profiles = new ConnectionScan.Profile[table.getStationNumber()];
+    /* the best ways of leaving the departure Station in the window */
+    ConnectionScan.Profile window = new ConnectionScan.Profile();
+
+    for(int c = table.size() - 1; c >= offset; c--) {
+      int trip = table.getTrip(c);
+      int station = table.getArrivingStation(c);
+      int bestArrival = INFINITY, bestLegs = INFINITY, bestNext = ARRIVED;
+
+      if(station == to) {
+        bestArrival = table.getArrivalTime(c);
+        bestLegs = 1;
+      }
+      else {
+        /* staying on the same Service */
+        if(tripArrival[trip] != INFINITY) {
+          bestArrival = tripArrival[trip];
+          bestLegs = tripLegs[trip];
+          bestNext = tripNext[trip];
+        }
+        /* or changing to another one */
+        ConnectionScan.Profile profile = profiles[station];
+        int entry = profile == null ? -1 : profile.best(table.getArrivalTime(c));
+        if(entry >= 0 && ConnectionScan.isBetter(profile._arrival[entry],
+profile._legs[entry] + 1, bestArrival, bestLegs)) {
+          bestArrival = profile._arrival[entry];
+          bestLegs = profile._legs[entry] + 1;
+          bestNext = profile._connection[entry];
+        }
+      }
+
+      next[c - offset] = bestNext;
+      if(bestArrival == INFINITY)
+        continue;
+
+      tripArrival[trip] = bestArrival;
+      tripLegs[trip] = bestLegs;
+      tripNext[trip] = c;
+
+      station = table.getDepartingStation(c);
+      ConnectionScan.Profile profile = profiles[station];
+      if(profile == null)
+        profile = profiles[station] = new ConnectionScan.Profile();
+      add(profile, table.getDepartureTime(c), bestLegs, bestArrival, c);
+      /* the departures after the window must not dominate the ones in it */
+      if(station == from && table.getDepartureTime(c) <= last)
+        add(window, table.getDepartureTime(c), bestLegs, bestArrival, c);
+    }
+
+    /* the entries leave ever earlier, each better than the ones before it;
+    an entry is dominated by the following one if they leave at the same
+    time, or by the previous ones if it arrives no earlier */
+    int previous = INFINITY;
+    for(int i = 0; i < window._size; i++)
+      if((i + 1 == window._size || window._time[i + 1] != window._time[i]) &&
+window._arrival[i] < previous) {
+        previous = window._arrival[i];
+        res.add(ConnectionScan.buildItinerary(table, window._connection[i], next,
+offset, date));
+      }
+    return res;
+  }
+
+
+  /** Appends an entry to a profile if it is better than the last one. */
+  private static void add(ConnectionScan.Profile profile, int time, int legs,
+int arrival, int connection) {
+    if(profile._size == 0 || ConnectionScan.isBetter(arrival, legs,
+profile._arrival[profile._size - 1], profile._legs[profile._size - 1]))
+      profile.add(time, legs, arrival, connection);
+  }
+
+}
@@ -0,0 +1,166 @@
+package mmt.searchengines;
+
+
+import mmt.Itinerary;
+import mmt.ServiceSegment;
+import mmt.Station;
+import mmt.TrainCompany;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+
+/** SearchEngine based on RAPTOR (Round-bAsed Public Transit Optimized
+  * Router). Round k finds the earliest arrival at every station using k
+  * Services, scanning only the routes which stop at stations improved in the
+  * previous round. The result has one Itinerary for each number of Services
+  * which arrives earlier than with fewer Services (the Pareto-optimal
+  * Itineraries by number of segments and arrival time).
+  */
+
+public class Raptor implements SearchEngine {
+
+  /** Value used for unreachable stations. */
+  private static final int INFINITY = Integer.MAX_VALUE;
+
+  /** The routes of the last ConnectionTable used. */
+  private RouteTable _routes;
+
+
+
+  /** @return the RouteTable of the TrainCompany's current ConnectionTable */
+  private RouteTable getRouteTable(TrainCompany trains) {
+    ConnectionTable table = trains.getConnectionTable();
+    if(_routes == null || _routes.getConnectionTable() != table)
+      _routes = new RouteTable(table);
+    return _routes;
+  }
+
+
+
+  /** @see mmt.searchengines.SearchEngine#search(TrainCompany,Station,Station,LocalDate) */
+  @Override
+  public List<Itinerary> search(TrainCompany trains, Station departure,
+Station arrival, LocalDate date) {
+
+    List<Itinerary> res = new ArrayList<Itinerary>();
+    RouteTable routes = getRouteTable(trains);
+    ConnectionTable table = routes.getConnectionTable();
+    int from = table.getStationId(departure);
+    int to = table.getStationId(arrival);
+    if(from < 0 || to < 0)
+      return res;
+
+    int stations = table.getStationNumber();
+    int[] best = new int[stations];
+    int[] previous = new int[stations];
+    Arrays.fill(best, INFINITY);
+    Arrays.fill(previous, INFINITY);
+    best[from] = previous[from] = departure.getMinutes();
+
+    boolean[] marked = new boolean[stations];
+    marked[from] = true;
+    List<Integer> markedStations = new ArrayList<Integer>();
+    markedStations.add(from);
+
+    int[] firstMarked = new int[routes.getRouteNumber()];
+    Arrays.fill(firstMarked, INFINITY);
+
+    /* for each round, the trip (-1 if not improved), boarding and alighting
+    stop of the label of each station */
+    List<int[]> trips = new ArrayList<int[]>();
+    List<int[]> boardings = new ArrayList<int[]>();
+    List<int[]> alightings = new ArrayList<int[]>();
+    trips.add(null);
+    boardings.add(null);
+    alightings.add(null);
+
+    for(int k = 1; markedStations.size() > 0; k++) {
+
+      /* the routes to scan, each from its first marked stop */
+      List<Integer> queue = new ArrayList<Integer>();
+      for(int s : markedStations) {
+        marked[s] = false;
+        int[] stationRoutes = routes.getRoutes(s);
+        int[] positions = routes.getPositions(s);
+        for(int i = 0; i < stationRoutes.length; i++) {
+          if(firstMarked[stationRoutes[i]] == INFINITY)
+            queue.add(stationRoutes[i]);
+          firstMarked[stationRoutes[i]] = Math.min(firstMarked[stationRoutes[i]], positions[i]);
+        }
+      }
+      markedStations = new ArrayList<Integer>();
+
+      int[] current = Arrays.copyOf(previous, stations);
+      int[] trip = new int[stations];
+      int[] boarding = new int[stations];
+      int[] alighting = new int[stations];
+      Arrays.fill(trip, -1);
+
+      for(int r : queue) {
+        int stop = firstMarked[r];
+        firstMarked[r] = INFINITY;
+        int i = -1, boardingStop = -1;
+        for(; stop < routes.getStopNumber(r); stop++) {
+          int s = routes.getStation(r, stop);
+          if(i >= 0) {
+            int time = routes.getTime(r, i, stop);
+            if(time < best[s] && time < best[to]) {
+              current[s] = best[s] = time;
+              trip[s] = routes.getTrip(r, i);
+              boarding[s] = boardingStop;
+              alighting[s] = stop;
+              if(!marked[s]) {
+                marked[s] = true;
+                markedStations.add(s);
+              }
+            }
+          }
+          /* an earlier trip of the route may be caught here */
+          if(previous[s] != INFINITY && (i < 0 || previous[s] <= routes.getTime(r, i, stop))) {
+            int earlier = routes.firstTripAfter(r, stop, previous[s]);
+            if(earlier >= 0 && (i < 0 || earlier < i)) {
+              i = earlier;
+              boardingStop = stop;
+            }
+          }
+        }
+      }
+
+      trips.add(trip);
+      boardings.add(boarding);
+      alightings.add(alighting);
+      if(trip[to] >= 0)
+        res.add(buildItinerary(table, from, to, k, trips, boardings, alightings, date));
+      previous = current;
+    }
+    return res;
+  }
+
+
+
+  /** Follows the labels back from station (at round k) to from and turns them
+    * into an Itinerary.
+    * @return the Itinerary
+    */
+  private static Itinerary buildItinerary(ConnectionTable table, int from,
+int station, int k, List<int[]> trips, List<int[]> boardings,
+List<int[]> alightings, LocalDate date) {
+    LinkedList<ServiceSegment> segments = new LinkedList<ServiceSegment>();
+    for(; station != from; k--) {
+      /* the label may have been set in an earlier round */
+      while(trips.get(k)[station] < 0)
+        k--;
+      int trip = trips.get(k)[station];
+      int boarding = boardings.get(k)[station];
+      segments.addFirst(new ServiceSegment(table.getService(trip),
+boarding, alightings.get(k)[station]));
+      station = table.getStationId(trip, boarding);
+    }
+    return new Itinerary(date, segments);
+  }
+
+}
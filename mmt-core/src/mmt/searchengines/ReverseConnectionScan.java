@@ -0,0 +1,121 @@
+package mmt.searchengines;
+
+
+import mmt.Itinerary;
+import mmt.ServiceSegment;
+import mmt.Station;
+import mmt.TrainCompany;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+
+/** "Arrive by" search based on the Connection Scan Algorithm: finds the
+  * latest departures which reach the arrival Station by a given time.
+  * The connections are scanned once, by descending arrival, from the arrival
+  * Station's time, computing the latest time at which each station can be
+  * left (and the connection to take then); the zero-minute connections of a
+  * same minute come in the reverse of the order they chain (see
+  * ConnectionTable), so each one is scanned after the ones it leads to.
+  * Each Service leaving the departure Station gets the Itinerary of its
+  * latest possible boarding.
+  */
+
+public class ReverseConnectionScan {
+
+  /** Value used for unreachable stations and connections. */
+  private static final int NONE = -1;
+
+
+
+  /** @param trains
+    * @param departure
+    * @param arrival the arrival Station, at the latest arrival time
+    * @param date the Itineraries' date
+    * @return for each Service leaving departure, the Itinerary of its latest
+    * boarding which arrives on time (in the order of the Services)
+    */
+  public List<Itinerary> search(TrainCompany trains, Station departure,
+Station arrival, LocalDate date) {
+
+    List<Itinerary> res = new ArrayList<Itinerary>();
+    ConnectionTable table = trains.getConnectionTable();
+    int from = table.getStationId(departure);
+    int to = table.getStationId(arrival);
+    if(from < 0 || to < 0 || from == to)
+      return res;
+
+    /* the latest time each station can be left at, and the connection taken */
+    int[] latest = new int[table.getStationNumber()];
+    int[] enter = new int[table.getStationNumber()];
+    Arrays.fill(latest, NONE);
+    Arrays.fill(enter, NONE);
+    latest[to] = arrival.getMinutes();
+
+    /* the connection where each trip is left, when it is boarded before it,
+    and the same for each connection */
+    int[] tripExit = new int[table.getTripNumber()];
+    int[] exit = new int[table.size()];
+    Arrays.fill(tripExit, NONE);
+
+    /* the latest boarding of each trip at the departure station */
+    int[] boarding = new int[table.getTripNumber()];
+    Arrays.fill(boarding, NONE);
+
+    for(int i = table.lastArrivingBefore(latest[to]); i >= 0; i--) {
+      int c = table.getByArrival(i);
+      int trip = table.getTrip(c);
+      int station = table.getArrivingStation(c);
+
+      /* getting off here ends the Itinerary, or catches a connection; staying
+      on the trip avoids a transfer */
+      if(station == to || (tripExit[trip] == NONE && latest[station] >= table.getArrivalTime(c)))
+        tripExit[trip] = c;
+      if(tripExit[trip] == NONE)
+        continue;
+      exit[c] = tripExit[trip];
+
+      station = table.getDepartingStation(c);
+      if(table.getDepartureTime(c) > latest[station]) {
+        latest[station] = table.getDepartureTime(c);
+        enter[station] = c;
+      }
+      if(station == from && boarding[trip] == NONE)
+        boarding[trip] = c;
+    }
+
+    for(int trip = 0; trip < boarding.length; trip++)
+      if(boarding[trip] != NONE) {
+        Itinerary itinerary = buildItinerary(table, boarding[trip], to, exit, enter, date);
+        if(itinerary != null)
+          res.add(itinerary);
+      }
+    return res;
+  }
+
+
+
+  /** Follows the chosen connections, starting at connection c, and turns
+    * them into an Itinerary.
+    * @return the Itinerary, or null if the connections go around in a circle
+    * (zero-minute connections of a same minute can) instead of arriving
+    */
+  private static Itinerary buildItinerary(ConnectionTable table, int c, int to,
+int[] exit, int[] enter, LocalDate date) {
+    List<ServiceSegment> segments = new ArrayList<ServiceSegment>();
+    while(segments.size() < table.getTripNumber()) {
+      int trip = table.getTrip(c);
+      int last = exit[c];
+      segments.add(new ServiceSegment(table.getService(trip),
+table.getStop(c), table.getStop(last) + 1));
+      int station = table.getArrivingStation(last);
+      if(station == to)
+        return new Itinerary(date, segments);
+      c = enter[station];
+    }
+    return null;
+  }
+
+}
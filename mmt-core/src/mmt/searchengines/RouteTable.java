@@ -0,0 +1,195 @@
+package mmt.searchengines;
+
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.HashMap;
+
+
+
+/** Groups the trips of a ConnectionTable into routes: trips with the same
+  * sequence of stations, none of which overtakes another, sorted by
+  * departure. The stop times of each route are kept in one array (trip by
+  * trip), which is the layout RAPTOR scans.
+  */
+
+public class RouteTable {
+
+  /** The ConnectionTable this RouteTable was built from. */
+  private ConnectionTable _connections;
+
+  /** Stations of each route, by stop position. */
+  private int[][] _stations;
+  /** Trips of each route, by ascending departure. */
+  private int[][] _trips;
+  /** Stop times of each route: the time of trip i at stop p is at
+    * i * (number of stops) + p. */
+  private int[][] _times;
+
+  /** Routes stopping at each station. */
+  private int[][] _stationRoutes;
+  /** Stop position of each station in each of its routes. */
+  private int[][] _stationPositions;
+
+
+
+  /** Constructor for class RouteTable.
+    * @param connections
+    */
+  public RouteTable(final ConnectionTable connections) {
+    _connections = connections;
+
+    /* trips by departure, so that each one is appended after the ones it
+    cannot overtake */
+    Integer[] order = new Integer[connections.getTripNumber()];
+    for(int t = 0; t < order.length; t++)
+      order[t] = t;
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer t1, Integer t2) {
+        return Integer.compare(time(t1, 0), time(t2, 0));
+      }
+    });
+
+    Map<String, List<List<Integer>>> bySequence = new HashMap<String, List<List<Integer>>>();
+    List<List<Integer>> routes = new ArrayList<List<Integer>>();
+    for(int t : order) {
+      if(connections.getStopNumber(t) < 2)
+        continue;
+      String sequence = sequence(t);
+      List<List<Integer>> candidates = bySequence.get(sequence);
+      if(candidates == null) {
+        candidates = new ArrayList<List<Integer>>();
+        bySequence.put(sequence, candidates);
+      }
+      List<Integer> route = null;
+      for(List<Integer> candidate : candidates)
+        if(!overtakes(t, candidate.get(candidate.size() - 1))) {
+          route = candidate;
+          break;
+        }
+      if(route == null) {
+        route = new ArrayList<Integer>();
+        candidates.add(route);
+        routes.add(route);
+      }
+      route.add(t);
+    }
+
+    _stations = new int[routes.size()][];
+    _trips = new int[routes.size()][];
+    _times = new int[routes.size()][];
+    int[] routesNumber = new int[connections.getStationNumber()];
+    for(int r = 0; r < routes.size(); r++) {
+      List<Integer> route = routes.get(r);
+      int first = route.get(0);
+      int stops = connections.getStopNumber(first);
+      _stations[r] = new int[stops];
+      for(int p = 0; p < stops; p++) {
+        _stations[r][p] = station(first, p);
+        routesNumber[_stations[r][p]]++;
+      }
+      _trips[r] = new int[route.size()];
+      _times[r] = new int[route.size() * stops];
+      for(int i = 0; i < route.size(); i++) {
+        _trips[r][i] = route.get(i);
+        for(int p = 0; p < stops; p++)
+          _times[r][i * stops + p] = time(route.get(i), p);
+      }
+    }
+
+    _stationRoutes = new int[routesNumber.length][];
+    _stationPositions = new int[routesNumber.length][];
+    for(int s = 0; s < routesNumber.length; s++) {
+      _stationRoutes[s] = new int[routesNumber[s]];
+      _stationPositions[s] = new int[routesNumber[s]];
+    }
+    Arrays.fill(routesNumber, 0);
+    for(int r = 0; r < _stations.length; r++)
+      for(int p = 0; p < _stations[r].length; p++) {
+        int s = _stations[r][p];
+        _stationRoutes[s][routesNumber[s]] = r;
+        _stationPositions[s][routesNumber[s]++] = p;
+      }
+  }
+
+
+
+  /** @return the station id of a stop of a trip */
+  private int station(int trip, int stop) {
+    return _connections.getService(trip).getStationId(stop);
+  }
+
+  /** @return the minute of the day of a stop of a trip */
+  private int time(int trip, int stop) {
+    return _connections.getService(trip).getMinutes(stop);
+  }
+
+  /** @return a key identifying the sequence of stations of a trip */
+  private String sequence(int trip) {
+    StringBuilder res = new StringBuilder();
+    for(int p = 0; p < _connections.getStopNumber(trip); p++)
+      res.append(station(trip, p)).append(',');
+    return res.toString();
+  }
+
+  /** @return true if trip is earlier than previous at some stop (both
+    * having the same stations)
+    */
+  private boolean overtakes(int trip, int previous) {
+    for(int p = 0; p < _connections.getStopNumber(trip); p++)
+      if(time(trip, p) < time(previous, p))
+        return true;
+    return false;
+  }
+
+
+
+
+  /** @return the ConnectionTable this RouteTable was built from */
+  public ConnectionTable getConnectionTable() {return _connections;}
+  /** @return the number of routes */
+  public int getRouteNumber() {return _stations.length;}
+  /** @return the number of stops of a route */
+  public int getStopNumber(int route) {return _stations[route].length;}
+  /** @return the station at a stop position of a route */
+  public int getStation(int route, int stop) {return _stations[route][stop];}
+  /** @return the number of trips of a route */
+  public int getTripNumber(int route) {return _trips[route].length;}
+  /** @return the trip (in the ConnectionTable) of a route's i-th trip */
+  public int getTrip(int route, int i) {return _trips[route][i];}
+  /** @return the time of a route's i-th trip at a stop position */
+  public int getTime(int route, int i, int stop) {
+    return _times[route][i * _stations[route].length + stop];
+  }
+
+  /** @return the routes stopping at a station (the array must not be modified) */
+  public int[] getRoutes(int station) {return _stationRoutes[station];}
+  /** @return the stop positions of a station in each of the routes returned by
+    * getRoutes() (the array must not be modified)
+    */
+  public int[] getPositions(int station) {return _stationPositions[station];}
+
+  /** @param route
+    * @param stop
+    * @param time
+    * @return the first trip (index in the route) leaving stop at or after
+    * time, or -1 if there is none
+    */
+  public int firstTripAfter(int route, int stop, int time) {
+    int stops = _stations[route].length;
+    int low = 0, high = _trips[route].length;
+    while(low < high) {
+      int middle = (low + high) >>> 1;
+      if(_times[route][middle * stops + stop] < time)
+        low = middle + 1;
+      else
+        high = middle;
+    }
+    return low < _trips[route].length ? low : -1;
+  }
+
+}
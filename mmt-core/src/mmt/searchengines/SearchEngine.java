@@ -0,0 +1,28 @@
+package mmt.searchengines;
+
+
+import mmt.Itinerary;
+import mmt.Station;
+import mmt.TrainCompany;
+
+import java.time.LocalDate;
+import java.util.List;
+
+
+/** Interface for the algorithms that search for Itineraries in the Services
+  * of a TrainCompany.
+  */
+
+public interface SearchEngine {
+
+  /** @param trains the TrainCompany whose Services are used
+    * @param departure the departure Station (its time is the minimum time of
+    * departure)
+    * @param arrival the Station we want to get to
+    * @param date the Itineraries' date
+    * @return the Itineraries found (in no particular order)
+    */
+  public List<Itinerary> search(TrainCompany trains, Station departure,
+Station arrival, LocalDate date);
+
+}
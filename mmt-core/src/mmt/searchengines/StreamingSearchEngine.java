@@ -0,0 +1,31 @@
+package mmt.searchengines;
+
+
+import mmt.Itinerary;
+import mmt.Station;
+import mmt.TrainCompany;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+
+
+/** Interface for the SearchEngines which can give their Itineraries one at
+  * a time, already sorted, so that the first ones can be used before the
+  * others are built.
+  */
+
+public interface StreamingSearchEngine extends SearchEngine {
+
+  /** @param trains the TrainCompany whose Services are used
+    * @param departure the departure Station (its time is the minimum time of
+    * departure)
+    * @param arrival the Station we want to get to
+    * @param date the Itineraries' date
+    * @return the Itineraries search() would find, in their natural order,
+    * each one built only when it is asked for
+    * @see mmt.Itinerary#compareTo(Itinerary)
+    */
+  public Iterator<Itinerary> stream(TrainCompany trains, Station departure,
+Station arrival, LocalDate date);
+
+}
@@ -0,0 +1,227 @@
+package mmt.searchengines;
+
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.LinkedHashSet;
+import java.util.concurrent.RecursiveAction;
+
+
+
+/** The transfer patterns of a ConnectionTable: for each pair of stations
+  * (origin, destination), the sequences of stations (the transfer stations
+  * and then the destination) of the 1. more direct 2. fastest ways of going
+  * from the origin to the destination, for every connection leaving the
+  * origin at any time of the day.
+  * They are computed once, with one backward connection scan for each
+  * destination (the destinations are scanned in parallel, by the common
+  * ForkJoinPool).
+  * @see mmt.searchengines.ConnectionScan
+  */
+
+public class TransferPatternTable {
+
+  /** The ConnectionTable this TransferPatternTable was built from. */
+  private ConnectionTable _connections;
+
+  /** The direct rides between stations, used to evaluate the patterns. */
+  private DirectConnectionTable _directConnections;
+
+  /** The patterns of each destination (first index) and origin (second index). */
+  private int[][][][] _patterns;
+
+
+
+  /** The computation of the patterns of one destination. */
+  private static class DestinationScan extends RecursiveAction {
+
+    /** Serial number for serialization. */
+    private static final long serialVersionUID = 201712031000L;
+
+    /** The ConnectionTable. */
+    private ConnectionTable _table;
+    /** The destination. */
+    private int _to;
+    /** Where the patterns of each origin are kept. */
+    private int[][][] _patterns;
+
+    /** Station of each pattern node. */
+    private int[] _nodeStation = new int[16];
+    /** Following node of each pattern node (-1 for the destination). */
+    private int[] _nodeNext = new int[16];
+    /** The number of nodes. */
+    private int _nodeNumber = 0;
+    /** The nodes, by (station, following node). */
+    private Map<Long, Integer> _nodes = new HashMap<Long, Integer>();
+
+
+    /** Constructor for class DestinationScan.
+      * @param table
+      * @param to
+      * @param patterns
+      */
+    DestinationScan(ConnectionTable table, int to, int[][][] patterns) {
+      _table = table;
+      _to = to;
+      _patterns = patterns;
+    }
+
+
+    /** @return the node of station followed by node next (created if it is new) */
+    private int node(int station, int next) {
+      long key = ((long) station << 32) | (next & 0xffffffffL);
+      Integer node = _nodes.get(key);
+      if(node == null) {
+        if(_nodeNumber == _nodeStation.length) {
+          _nodeStation = Arrays.copyOf(_nodeStation, _nodeNumber * 2);
+          _nodeNext = Arrays.copyOf(_nodeNext, _nodeNumber * 2);
+        }
+        _nodeStation[_nodeNumber] = station;
+        _nodeNext[_nodeNumber] = next;
+        node = _nodeNumber++;
+        _nodes.put(key, node);
+      }
+      return node;
+    }
+
+    /** @return the stations from node to the destination */
+    private int[] stations(int node) {
+      int length = 0;
+      for(int n = node; n >= 0; n = _nodeNext[n])
+        length++;
+      int[] res = new int[length];
+      for(int i = 0; node >= 0; node = _nodeNext[node])
+        res[i++] = _nodeStation[node];
+      return res;
+    }
+
+
+    /** Scans every connection, as the ConnectionScan does, recording the
+      * pattern of the best way of reaching the destination after each one.
+      * @see java.util.concurrent.RecursiveAction#compute()
+      */
+    @Override
+    protected void compute() {
+      final int INFINITY = ConnectionScan.INFINITY;
+      final int ARRIVED = ConnectionScan.ARRIVED;
+      int size = _table.size();
+      int[] legs = new int[size];
+      int[] pattern = new int[size];
+
+      int[] tripLegs = new int[_table.getTripNumber()];
+      int[] tripArrival = new int[_table.getTripNumber()];
+      int[] tripNext = new int[_table.getTripNumber()];
+      Arrays.fill(tripLegs, INFINITY);
+
+      ConnectionScan.Profile[] profiles = new ConnectionScan.Profile[_table.getStationNumber()];
+      int destination = node(_to, -1);
+
+      for(int c = size - 1; c >= 0; c--) {
+        int trip = _table.getTrip(c);
+        int station = _table.getArrivingStation(c);
+        int bestLegs = INFINITY, bestArrival = INFINITY, bestNext = ARRIVED;
+
+        if(station == _to) {
+          bestLegs = 1;
+          bestArrival = _table.getArrivalTime(c);
+        }
+        else {
+          if(tripLegs[trip] != INFINITY) {
+            bestLegs = tripLegs[trip];
+            bestArrival = tripArrival[trip];
+            bestNext = tripNext[trip];
+          }
+          ConnectionScan.Profile profile = profiles[station];
+          int entry = profile == null ? -1 : profile.best(_table.getArrivalTime(c));
+          if(entry >= 0 && ConnectionScan.isBetter(profile._legs[entry] + 1,
+profile._arrival[entry], bestLegs, bestArrival)) {
+            bestLegs = profile._legs[entry] + 1;
+            bestArrival = profile._arrival[entry];
+            bestNext = profile._connection[entry];
+          }
+        }
+
+        legs[c] = bestLegs;
+        if(bestLegs == INFINITY)
+          continue;
+        if(bestNext == ARRIVED)
+          pattern[c] = destination;
+        else if(_table.getTrip(bestNext) == trip && _table.getStop(bestNext) == _table.getStop(c) + 1)
+          pattern[c] = pattern[bestNext];
+        else
+          pattern[c] = node(station, pattern[bestNext]);
+
+        tripLegs[trip] = bestLegs;
+        tripArrival[trip] = bestArrival;
+        tripNext[trip] = c;
+
+        station = _table.getDepartingStation(c);
+        ConnectionScan.Profile profile = profiles[station];
+        if(profile == null)
+          profile = profiles[station] = new ConnectionScan.Profile();
+        if(profile._size == 0 || ConnectionScan.isBetter(bestLegs, bestArrival,
+profile._legs[profile._size - 1], profile._arrival[profile._size - 1]))
+          profile.add(_table.getDepartureTime(c), bestLegs, bestArrival, c);
+      }
+
+      /* the patterns of an origin are the ones of the connections leaving it */
+      for(int from = 0; from < _patterns.length; from++) {
+        Set<Integer> nodes = new LinkedHashSet<Integer>();
+        for(int c : _table.getDepartures(from))
+          if(legs[c] != INFINITY)
+            nodes.add(pattern[c]);
+        if(nodes.isEmpty())
+          continue;
+        List<int[]> patterns = new ArrayList<int[]>();
+        for(int node : nodes)
+          patterns.add(stations(node));
+        _patterns[from] = patterns.toArray(new int[patterns.size()][]);
+      }
+    }
+  }
+
+
+
+  /** Constructor for class TransferPatternTable.
+    * @param connections
+    */
+  public TransferPatternTable(ConnectionTable connections) {
+    _connections = connections;
+    _directConnections = new DirectConnectionTable(connections);
+    int stations = connections.getStationNumber();
+    _patterns = new int[stations][][][];
+
+    List<DestinationScan> scans = new ArrayList<DestinationScan>();
+    for(int to = 0; to < stations; to++) {
+      _patterns[to] = new int[stations][][];
+      scans.add(new DestinationScan(connections, to, _patterns[to]));
+    }
+    for(DestinationScan scan : scans)
+      scan.fork();
+    for(DestinationScan scan : scans)
+      scan.join();
+  }
+
+
+
+
+  /** @return the ConnectionTable this TransferPatternTable was built from */
+  public ConnectionTable getConnectionTable() {return _connections;}
+  /** @return the direct rides between stations */
+  public DirectConnectionTable getDirectConnections() {return _directConnections;}
+
+  /** @param from a station id
+    * @param to a station id
+    * @return the patterns from from to to (each one the transfer stations
+    * and then to), or null if to can't be reached from from (the arrays
+    * must not be modified)
+    */
+  public int[][] getPatterns(int from, int to) {
+    return _patterns[to][from];
+  }
+
+}
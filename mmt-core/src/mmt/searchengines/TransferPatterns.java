@@ -0,0 +1,120 @@
+package mmt.searchengines;
+
+
+import mmt.Itinerary;
+import mmt.ServiceSegment;
+import mmt.Station;
+import mmt.TrainCompany;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/** SearchEngine based on transfer patterns. The 1. more direct 2. fastest
+  * sequences of transfer stations between every pair of stations are
+  * precomputed once (a TransferPatternTable); a search only follows the
+  * patterns of its pair of stations, taking at each step the earliest
+  * arrival given by the DirectConnectionTable. Each Service leaving the
+  * departure Station gets its best Itinerary, just like with the
+  * ConnectionScan.
+  * The precomputation is slow (one scan of the timetable per station), so
+  * this engine suits many searches over a timetable which doesn't change.
+  */
+
+public class TransferPatterns implements SearchEngine {
+
+  /** The transfer patterns of the last ConnectionTable used. */
+  private TransferPatternTable _patterns;
+
+
+
+  /** Computes the transfer patterns of the TrainCompany's Services, if
+    * they aren't already computed (otherwise the first search does it).
+    * @param trains
+    * @return the TransferPatternTable of the TrainCompany's current ConnectionTable
+    */
+  public TransferPatternTable precompute(TrainCompany trains) {
+    ConnectionTable table = trains.getConnectionTable();
+    if(_patterns == null || _patterns.getConnectionTable() != table)
+      _patterns = new TransferPatternTable(table);
+    return _patterns;
+  }
+
+
+
+  /** @see mmt.searchengines.SearchEngine#search(TrainCompany,Station,Station,LocalDate) */
+  @Override
+  public List<Itinerary> search(TrainCompany trains, Station departure,
+Station arrival, LocalDate date) {
+
+    List<Itinerary> res = new ArrayList<Itinerary>();
+    TransferPatternTable patterns = precompute(trains);
+    ConnectionTable table = patterns.getConnectionTable();
+    DirectConnectionTable direct = patterns.getDirectConnections();
+    int from = table.getStationId(departure);
+    int to = table.getStationId(arrival);
+    if(from < 0 || to < 0 || patterns.getPatterns(from, to) == null)
+      return res;
+
+    int time = departure.getMinutes();
+
+    /* the best (number of segments, arrival, pattern, first ride) of each
+    departing trip and stop, by trip and then stop */
+    Map<Long, int[]> best = new TreeMap<Long, int[]>();
+    int[][] fromPatterns = patterns.getPatterns(from, to);
+    for(int p = 0; p < fromPatterns.length; p++) {
+      int[] pattern = fromPatterns[p];
+      DirectConnectionTable.Rides first = direct.getRides(from, pattern[0]);
+      for(int i = first.firstDepartingAfter(time); i < first.size(); i++) {
+        int arrivalTime = follow(table, direct, pattern, first, i, null);
+        if(arrivalTime == ConnectionScan.INFINITY)
+          continue;
+        long key = ((long) first.getTrip(i) << 32) | first.getBoarding(i);
+        int[] current = best.get(key);
+        if(current == null || ConnectionScan.isBetter(pattern.length, arrivalTime,
+current[0], current[1]))
+          best.put(key, new int[] {pattern.length, arrivalTime, p, i});
+      }
+    }
+
+    for(int[] entry : best.values()) {
+      int[] pattern = fromPatterns[entry[2]];
+      List<ServiceSegment> segments = new ArrayList<ServiceSegment>();
+      follow(table, direct, pattern, direct.getRides(from, pattern[0]),
+entry[3], segments);
+      Itinerary itinerary = new Itinerary(date, segments);
+      res.add(itinerary);
+    }
+    return res;
+  }
+
+
+
+  /** Follows a pattern, starting with ride i of first and taking the
+    * earliest arrival at each of the following stations.
+    * @param segments where the segments are added (if not null)
+    * @return the arrival minute at the end of the pattern, or INFINITY if it
+    * can't be followed
+    */
+  private static int follow(ConnectionTable table, DirectConnectionTable direct,
+int[] pattern, DirectConnectionTable.Rides first, int i, List<ServiceSegment> segments) {
+    DirectConnectionTable.Rides rides = first;
+    for(int step = 0; ; step++) {
+      if(segments != null) {
+        int trip = rides.getTrip(i);
+        segments.add(new ServiceSegment(table.getService(trip),
+rides.getBoarding(i), rides.getAlighting(i)));
+      }
+      if(step + 1 == pattern.length)
+        return rides.getArrival(i);
+      int arrivalTime = rides.getArrival(i);
+      rides = direct.getRides(pattern[step], pattern[step + 1]);
+      if(rides == null || (i = rides.earliestArrival(arrivalTime)) < 0)
+        return ConnectionScan.INFINITY;
+    }
+  }
+
+}
@@ -0,0 +1,162 @@
+package mmt.searchengines;
+
+
+import mmt.Station;
+import mmt.TrainCompany;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+
+/** Many-to-many travel times: the earliest arrival from each of some origins
+  * to each of some destinations, leaving at a given time, and the fare of
+  * an Itinerary which arrives then (preferring the cheaper ones on ties).
+  * Each origin takes one forward connection scan, which stops as soon as no
+  * destination can be improved (changes between zero-minute connections of a
+  * same minute are found too, as the ConnectionTable sorts them so that they
+  * chain); the origins are scanned in parallel, by the common ForkJoinPool,
+  * sharing the ConnectionTable.
+  */
+
+public class TravelTimeMatrix {
+
+  /** Value of the travel times (and fares) of unreachable destinations. */
+  public static final int UNREACHABLE = -1;
+
+  /** Value used for unreached stations and unboarded trips. */
+  private static final int NONE = Integer.MAX_VALUE;
+
+
+  /** The ConnectionTable of the TrainCompany. */
+  private ConnectionTable _table;
+
+
+
+  /** The scan of one origin. */
+  private class OriginScan extends RecursiveAction {
+
+    /** Serial number for serialization. */
+    private static final long serialVersionUID = 201712041000L;
+
+    /** The origin's station id. */
+    private int _from;
+    /** The destinations' station ids. */
+    private int[] _to;
+    /** The departure minute. */
+    private int _time;
+    /** The origin's row of travel times. */
+    private int[] _minutes;
+    /** The origin's row of fares (or null). */
+    private double[] _fares;
+
+    /** Constructor for class OriginScan. */
+    OriginScan(int from, int[] to, int time, int[] minutes, double[] fares) {
+      _from = from;
+      _to = to;
+      _time = time;
+      _minutes = minutes;
+      _fares = fares;
+    }
+
+    /** @see java.util.concurrent.RecursiveAction#compute() */
+    @Override
+    protected void compute() {
+      int[] arrival = new int[_table.getStationNumber()];
+      double[] cost = new double[_table.getStationNumber()];
+      int[] tripTime = new int[_table.getTripNumber()];
+      double[] tripCost = new double[_table.getTripNumber()];
+      Arrays.fill(arrival, NONE);
+      Arrays.fill(tripTime, NONE);
+      arrival[_from] = _time;
+
+      boolean[] destination = new boolean[arrival.length];
+      for(int s : _to)
+        destination[s] = true;
+      int unreached = 0;
+      for(int s = 0; s < destination.length; s++)
+        if(destination[s] && s != _from)
+          unreached++;
+      int bound = unreached == 0 ? _time : NONE;
+
+      for(int c = _table.firstDepartingAfter(_time); c < _table.size() &&
+_table.getDepartureTime(c) <= bound; c++) {
+        int trip = _table.getTrip(c);
+        int station = _table.getDepartingStation(c);
+        int departure = _table.getDepartureTime(c);
+
+        /* boarding here (or again, if it is cheaper) */
+        if(arrival[station] <= departure && (tripTime[trip] == NONE ||
+cost[station] < tripCost[trip] + _table.getCost(trip, departure - tripTime[trip]))) {
+          tripTime[trip] = departure;
+          tripCost[trip] = cost[station];
+        }
+        if(tripTime[trip] == NONE)
+          continue;
+
+        station = _table.getArrivingStation(c);
+        int time = _table.getArrivalTime(c);
+        double fare = tripCost[trip] + _table.getCost(trip, time - tripTime[trip]);
+        if(time < arrival[station] || (time == arrival[station] && fare < cost[station])) {
+          if(destination[station] && arrival[station] == NONE)
+            unreached--;
+          arrival[station] = time;
+          cost[station] = fare;
+          /* once every destination is reached, the scan ends after the
+          latest arrival */
+          if(destination[station] && unreached == 0) {
+            bound = _time;
+            for(int s : _to)
+              bound = Math.max(bound, arrival[s]);
+          }
+        }
+      }
+
+      for(int j = 0; j < _to.length; j++) {
+        boolean reached = arrival[_to[j]] != NONE;
+        _minutes[j] = reached ? arrival[_to[j]] - _time : UNREACHABLE;
+        if(_fares != null)
+          _fares[j] = reached ? cost[_to[j]] : UNREACHABLE;
+      }
+    }
+  }
+
+
+
+  /** Constructor for class TravelTimeMatrix.
+    * @param trains
+    */
+  public TravelTimeMatrix(TrainCompany trains) {
+    _table = trains.getConnectionTable();
+  }
+
+
+
+  /** Fills the travel times (in minutes, waiting included) and fares from
+    * each origin to each destination, or UNREACHABLE.
+    * @param origins registered Stations
+    * @param destinations registered Stations
+    * @param departure the departure time
+    * @param minutes the travel times, by origin and destination
+    * @param fares the fares, by origin and destination (or null, if they
+    * aren't needed)
+    */
+  public void compute(List<Station> origins, List<Station> destinations,
+LocalTime departure, int[][] minutes, double[][] fares) {
+    int[] to = new int[destinations.size()];
+    for(int j = 0; j < to.length; j++)
+      to[j] = _table.getStationId(destinations.get(j));
+
+    List<OriginScan> scans = new ArrayList<OriginScan>();
+    for(int i = 0; i < origins.size(); i++)
+      scans.add(new OriginScan(_table.getStationId(origins.get(i)), to,
+Station.minutes(departure), minutes[i], fares == null ? null : fares[i]));
+    for(OriginScan scan : scans)
+      scan.fork();
+    for(OriginScan scan : scans)
+      scan.join();
+  }
+
+}
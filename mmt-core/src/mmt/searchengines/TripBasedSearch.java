@@ -0,0 +1,217 @@
+package mmt.searchengines;
+
+
+import mmt.Itinerary;
+import mmt.ServiceSegment;
+import mmt.Station;
+import mmt.TrainCompany;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+
+/** SearchEngine based on trip-based routing. Which trips can be boarded
+  * after getting off each connection is precomputed once (a
+  * TripTransferTable); a search is then a breadth-first search over trip
+  * segments, the n-th round holding the segments reached with n transfers,
+  * so the first round which reaches the arrival Station gives the most
+  * direct Itinerary, and the earliest arrival of that round the fastest.
+  * Each Service leaving the departure Station gets its best Itinerary, just
+  * like with the ConnectionScan.
+  * The precomputation takes about as long as a few hundred searches, so this
+  * engine suits many searches over a timetable which doesn't change.
+  */
+
+public class TripBasedSearch implements SearchEngine {
+
+  /** The transfers of the last ConnectionTable used. */
+  private TripTransferTable _transfers;
+
+
+
+  /** The trip segments of one search, kept in parallel arrays. */
+  private static class Segments {
+    /** Trip of each segment. */
+    int[] _trip = new int[64];
+    /** Stop where each segment is boarded. */
+    int[] _from = new int[64];
+    /** Last stop where each segment may be left. */
+    int[] _to = new int[64];
+    /** The segment before each segment (-1 for the first one). */
+    int[] _parent = new int[64];
+    /** The connection of the parent segment which is left for each segment. */
+    int[] _left = new int[64];
+    /** The number of segments. */
+    int _size = 0;
+
+    /** The first stop from which each trip was boarded (its last stop, if it
+    wasn't). */
+    int[] _reached;
+    /** The trips boarded, to clear _reached. */
+    int[] _touched = new int[64];
+    /** The number of trips boarded. */
+    int _touchedNumber = 0;
+
+    /** Constructor for class Segments. */
+    Segments(ConnectionTable table) {
+      _reached = new int[table.getTripNumber()];
+      for(int trip = 0; trip < _reached.length; trip++)
+        _reached[trip] = table.getStopNumber(trip) - 1;
+    }
+
+    /** Adds a segment of trip from stop, unless the trip was already
+      * boarded there or before.
+      */
+    void add(int trip, int from, int parent, int left) {
+      if(from >= _reached[trip])
+        return;
+      if(_size == _trip.length) {
+        _trip = Arrays.copyOf(_trip, _size * 2);
+        _from = Arrays.copyOf(_from, _size * 2);
+        _to = Arrays.copyOf(_to, _size * 2);
+        _parent = Arrays.copyOf(_parent, _size * 2);
+        _left = Arrays.copyOf(_left, _size * 2);
+      }
+      _trip[_size] = trip;
+      _from[_size] = from;
+      _to[_size] = _reached[trip];
+      _parent[_size] = parent;
+      _left[_size] = left;
+      _size++;
+      if(_touchedNumber == _touched.length)
+        _touched = Arrays.copyOf(_touched, _touchedNumber * 2);
+      _touched[_touchedNumber++] = trip;
+      _reached[trip] = from;
+    }
+
+    /** Forgets every segment. */
+    void clear(ConnectionTable table) {
+      for(int i = 0; i < _touchedNumber; i++)
+        _reached[_touched[i]] = table.getStopNumber(_touched[i]) - 1;
+      _touchedNumber = 0;
+      _size = 0;
+    }
+  }
+
+
+
+  /** Computes the transfers of the TrainCompany's Services, if they aren't
+    * already computed (otherwise the first search does it).
+    * @param trains
+    * @return the TripTransferTable of the TrainCompany's current ConnectionTable
+    */
+  public TripTransferTable precompute(TrainCompany trains) {
+    ConnectionTable table = trains.getConnectionTable();
+    if(_transfers == null || _transfers.getConnectionTable() != table)
+      _transfers = new TripTransferTable(table);
+    return _transfers;
+  }
+
+
+
+  /** @see mmt.searchengines.SearchEngine#search(TrainCompany,Station,Station,LocalDate) */
+  @Override
+  public List<Itinerary> search(TrainCompany trains, Station departure,
+Station arrival, LocalDate date) {
+
+    List<Itinerary> res = new ArrayList<Itinerary>();
+    TripTransferTable transfers = precompute(trains);
+    final ConnectionTable table = transfers.getConnectionTable();
+    int from = table.getStationId(departure);
+    int to = table.getStationId(arrival);
+    if(from < 0 || to < 0)
+      return res;
+
+    int time = departure.getMinutes();
+
+    /* the boardings at the departure Station, in the order of the Services
+    (which is the order the DepthFirstSearch uses) */
+    List<Integer> boardings = new ArrayList<Integer>();
+    for(int c : table.getDepartures(from))
+      if(table.getDepartureTime(c) >= time)
+        boardings.add(c);
+    boardings.sort(new Comparator<Integer>() {
+      @Override
+      public int compare(Integer c1, Integer c2) {
+        if(table.getTrip(c1) != table.getTrip(c2))
+          return Integer.compare(table.getTrip(c1), table.getTrip(c2));
+        return Integer.compare(table.getStop(c1), table.getStop(c2));
+      }
+    });
+
+    Segments segments = new Segments(table);
+    for(int c : boardings) {
+      segments.clear(table);
+      Itinerary itinerary = search(table, transfers, segments, c, to, date);
+      if(itinerary != null)
+        res.add(itinerary);
+    }
+    return res;
+  }
+
+
+
+  /** The breadth-first search from the boarding of connection c.
+    * @return the 1. more direct 2. fastest Itinerary from c to the station
+    * to, or null if there is none
+    */
+  private static Itinerary search(ConnectionTable table, TripTransferTable transfers,
+Segments segments, int c, int to, LocalDate date) {
+
+    segments.add(table.getTrip(c), table.getStop(c), -1, -1);
+    int round = 0;
+    while(round < segments._size) {
+      int end = segments._size;
+
+      /* the earliest arrival of this round */
+      int bestArrival = ConnectionScan.INFINITY, bestSegment = -1, bestConnection = -1;
+      for(int s = round; s < end; s++) {
+        int trip = segments._trip[s];
+        for(int p = segments._from[s]; p < segments._to[s]; p++) {
+          int e = table.getConnection(trip, p);
+          if(table.getArrivalTime(e) >= bestArrival)
+            break;
+          if(table.getArrivingStation(e) == to) {
+            bestArrival = table.getArrivalTime(e);
+            bestSegment = s;
+            bestConnection = e;
+          }
+        }
+      }
+      if(bestSegment >= 0)
+        return buildItinerary(table, segments, bestSegment, bestConnection, date);
+
+      /* the next round */
+      for(int s = round; s < end; s++) {
+        int trip = segments._trip[s];
+        for(int p = segments._from[s]; p < segments._to[s]; p++) {
+          int e = table.getConnection(trip, p);
+          for(int d : transfers.getTransfers(e))
+            segments.add(table.getTrip(d), table.getStop(d), s, e);
+        }
+      }
+      round = end;
+    }
+    return null;
+  }
+
+
+  /** Turns segment s, left at connection c, and its parents into an Itinerary.
+    * @return the Itinerary
+    */
+  private static Itinerary buildItinerary(ConnectionTable table, Segments segments,
+int s, int c, LocalDate date) {
+    LinkedList<ServiceSegment> res = new LinkedList<ServiceSegment>();
+    for(; s >= 0; c = segments._left[s], s = segments._parent[s]) {
+      int trip = segments._trip[s];
+      res.addFirst(new ServiceSegment(table.getService(trip),
+segments._from[s], table.getStop(c) + 1));
+    }
+    return new Itinerary(date, res);
+  }
+
+}
@@ -0,0 +1,184 @@
+package mmt.searchengines;
+
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+
+
+/** The useful transfers between the trips of a ConnectionTable: for each
+  * connection, the connections of other trips which can be boarded where
+  * it arrives (leaving the same station no earlier than it arrives) and
+  * which lead somewhere sooner than anything boarded before them.
+  * The transfers of each trip are reduced by going through its stops from
+  * the last to the first, keeping the earliest arrival at every station
+  * reachable from the trip (by staying on it, or by the transfers already
+  * kept); a transfer is only kept if it improves one of those arrivals.
+  * They are computed once, the trips being split in chunks which are reduced
+  * in parallel, by the common ForkJoinPool.
+  * @see mmt.searchengines.TripBasedSearch
+  */
+
+public class TripTransferTable {
+
+  /** Number of trips reduced by each task. */
+  private static final int CHUNK = 64;
+
+  /** Value used for stations not reached. */
+  private static final int NONE = Integer.MAX_VALUE;
+
+
+  /** The ConnectionTable this TripTransferTable was built from. */
+  private ConnectionTable _connections;
+
+  /** The transfers (the connections boarded) of each connection. */
+  private int[][] _transfers;
+
+
+
+  /** The reduction of the transfers of some trips. */
+  private static class TripScan extends RecursiveAction {
+
+    /** Serial number for serialization. */
+    private static final long serialVersionUID = 201712051000L;
+
+    /** The ConnectionTable. */
+    private ConnectionTable _table;
+    /** The first trip. */
+    private int _first;
+    /** The trip after the last one. */
+    private int _last;
+    /** Where the transfers of each connection are kept. */
+    private int[][] _transfers;
+
+
+    /** Constructor for class TripScan.
+      * @param table
+      * @param first
+      * @param last
+      * @param transfers
+      */
+    TripScan(ConnectionTable table, int first, int last, int[][] transfers) {
+      _table = table;
+      _first = first;
+      _last = last;
+      _transfers = transfers;
+    }
+
+
+    /** @see java.util.concurrent.RecursiveAction#compute() */
+    @Override
+    protected void compute() {
+      int[] earliest = new int[_table.getStationNumber()];
+      Arrays.fill(earliest, NONE);
+      /* the stations reached from the current trip, to clear earliest */
+      int[] touched = new int[16];
+      int touchedNumber = 0;
+      int[] kept = new int[16];
+
+      for(int trip = _first; trip < _last; trip++) {
+        for(int p = _table.getStopNumber(trip) - 2; p >= 0; p--) {
+          int c = _table.getConnection(trip, p);
+          int station = _table.getArrivingStation(c);
+          int time = _table.getArrivalTime(c);
+          if(time < earliest[station]) {
+            if(earliest[station] == NONE) {
+              if(touchedNumber == touched.length)
+                touched = Arrays.copyOf(touched, touchedNumber * 2);
+              touched[touchedNumber++] = station;
+            }
+            earliest[station] = time;
+          }
+
+          /* the candidates, by ascending departure */
+          int keptNumber = 0;
+          int[] departures = _table.getDepartures(station);
+          for(int i = firstDepartingAfter(departures, time); i < departures.length; i++) {
+            int d = departures[i];
+            int other = _table.getTrip(d);
+            if(other == trip)
+              continue;
+            boolean useful = false;
+            for(int e = d; e >= 0; e = _table.getConnection(other, _table.getStop(e) + 1)) {
+              int reached = _table.getArrivingStation(e);
+              if(_table.getArrivalTime(e) < earliest[reached]) {
+                if(earliest[reached] == NONE) {
+                  if(touchedNumber == touched.length)
+                    touched = Arrays.copyOf(touched, touchedNumber * 2);
+                  touched[touchedNumber++] = reached;
+                }
+                earliest[reached] = _table.getArrivalTime(e);
+                useful = true;
+              }
+            }
+            if(useful) {
+              if(keptNumber == kept.length)
+                kept = Arrays.copyOf(kept, keptNumber * 2);
+              kept[keptNumber++] = d;
+            }
+          }
+          _transfers[c] = Arrays.copyOf(kept, keptNumber);
+        }
+
+        for(int i = 0; i < touchedNumber; i++)
+          earliest[touched[i]] = NONE;
+        touchedNumber = 0;
+      }
+    }
+
+    /** @return the position of the first of departures leaving at or after time */
+    private int firstDepartingAfter(int[] departures, int time) {
+      int low = 0, high = departures.length;
+      while(low < high) {
+        int middle = (low + high) >>> 1;
+        if(_table.getDepartureTime(departures[middle]) < time)
+          low = middle + 1;
+        else
+          high = middle;
+      }
+      return low;
+    }
+  }
+
+
+
+  /** Constructor for class TripTransferTable.
+    * @param connections
+    */
+  public TripTransferTable(ConnectionTable connections) {
+    _connections = connections;
+    _transfers = new int[connections.size()][];
+
+    List<TripScan> scans = new ArrayList<TripScan>();
+    for(int first = 0; first < connections.getTripNumber(); first += CHUNK)
+      scans.add(new TripScan(connections, first, Math.min(first + CHUNK,
+connections.getTripNumber()), _transfers));
+    for(TripScan scan : scans)
+      scan.fork();
+    for(TripScan scan : scans)
+      scan.join();
+  }
+
+
+
+
+  /** @return the ConnectionTable this TripTransferTable was built from */
+  public ConnectionTable getConnectionTable() {return _connections;}
+
+  /** @param c a connection
+    * @return the connections which are worth boarding after getting off
+    * connection c (the array must not be modified)
+    */
+  public int[] getTransfers(int c) {return _transfers[c];}
+
+  /** @return the number of transfers kept */
+  public long size() {
+    long res = 0;
+    for(int[] transfers : _transfers)
+      res += transfers.length;
+    return res;
+  }
+
+}